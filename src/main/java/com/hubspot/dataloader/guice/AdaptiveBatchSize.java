@@ -0,0 +1,82 @@
+package com.hubspot.dataloader.guice;
+
+/**
+ * The batch size a binding has settled on, adjusted from the latency of its batches across requests. Each batch is
+ * split with the size chosen when it's dispatched. Bound as a singleton named after the DataLoader, so it can be
+ * injected to see what it decided
+ */
+public class AdaptiveBatchSize {
+  // how much weight each batch's latency gets in the moving average
+  private static final double SMOOTHING = 0.2;
+  // grow while full batches are under this fraction of the target, so it doesn't oscillate around it
+  private static final double GROW_BELOW = 0.8;
+  private static final double SHRINK_FACTOR = 0.75;
+
+  private final int minBatchSize;
+  private final int maxBatchSize;
+  private final long targetNanos;
+  private final int step;
+
+  private volatile int batchSize;
+  // guarded by this
+  private double averageNanos;
+
+  AdaptiveBatchSize(AdaptiveBatchSizeOptions options) {
+    if (options.minBatchSize() > options.maxBatchSize()) {
+      throw new IllegalArgumentException(
+          "Min batch size " + options.minBatchSize() + " is more than max batch size " + options.maxBatchSize()
+      );
+    }
+
+    this.minBatchSize = options.minBatchSize();
+    this.maxBatchSize = options.maxBatchSize();
+    this.targetNanos = options.targetLatency().toNanos();
+    this.step = Math.max(1, (maxBatchSize - minBatchSize) / 20);
+    this.batchSize = minBatchSize;
+    this.averageNanos = -1;
+  }
+
+  /**
+   * @return the max batch size the next batch will be split with
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * @return the moving average batch loader latency in nanoseconds, or -1 before the first batch
+   */
+  public synchronized double getAverageLatencyNanos() {
+    return averageNanos;
+  }
+
+  /**
+   * Grow additively while full batches are comfortably under the target and shrink multiplicatively once
+   * the average goes over it, so a slow backend gets relief quickly
+   */
+  synchronized void record(int size, long loadNanos) {
+    averageNanos = averageNanos < 0 ? loadNanos : averageNanos + SMOOTHING * (loadNanos - averageNanos);
+
+    int current = batchSize;
+    if (averageNanos > targetNanos && current > minBatchSize) {
+      batchSize = Math.max(minBatchSize, (int) (current * SHRINK_FACTOR));
+      // start over so the next decision is based on batches of the new size
+      averageNanos = -1;
+    } else if (averageNanos < targetNanos * GROW_BELOW && size >= current && current < maxBatchSize) {
+      batchSize = Math.min(maxBatchSize, current + step);
+    }
+  }
+
+  /**
+   * Records each batch the way metrics do, so the batch loader can be measured with the same wrapper
+   */
+  DataLoaderMetrics recorder() {
+    return new DataLoaderMetrics() {
+
+      @Override
+      public void recordBatch(String name, int batchSize, long loadNanos) {
+        record(batchSize, loadNanos);
+      }
+    };
+  }
+}
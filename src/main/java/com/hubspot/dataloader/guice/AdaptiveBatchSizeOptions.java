@@ -0,0 +1,67 @@
+package com.hubspot.dataloader.guice;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Bounds and target for a binding's adaptive batch size, see {@link TypedBindingBuilder#withAdaptiveBatchSize}
+ */
+public class AdaptiveBatchSizeOptions {
+  private int minBatchSize;
+  private int maxBatchSize;
+  private Duration targetLatency;
+
+  public AdaptiveBatchSizeOptions() {
+    this.minBatchSize = 10;
+    this.maxBatchSize = 1000;
+    this.targetLatency = Duration.ofMillis(100);
+  }
+
+  public static AdaptiveBatchSizeOptions newOptions() {
+    return new AdaptiveBatchSizeOptions();
+  }
+
+  public int minBatchSize() {
+    return minBatchSize;
+  }
+
+  /**
+   * The batch size never shrinks below this, it's also where it starts
+   */
+  public AdaptiveBatchSizeOptions setMinBatchSize(int minBatchSize) {
+    if (minBatchSize <= 0) {
+      throw new IllegalArgumentException("Min batch size must be positive, got " + minBatchSize);
+    }
+
+    this.minBatchSize = minBatchSize;
+    return this;
+  }
+
+  public int maxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * The batch size never grows above this
+   */
+  public AdaptiveBatchSizeOptions setMaxBatchSize(int maxBatchSize) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Max batch size must be positive, got " + maxBatchSize);
+    }
+
+    this.maxBatchSize = maxBatchSize;
+    return this;
+  }
+
+  public Duration targetLatency() {
+    return targetLatency;
+  }
+
+  /**
+   * The batch size grows while full batches load faster than this, and shrinks when batches load slower
+   */
+  public AdaptiveBatchSizeOptions setTargetLatency(Duration targetLatency) {
+    this.targetLatency = Objects.requireNonNull(targetLatency);
+    return this;
+  }
+}
@@ -0,0 +1,163 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.CacheKey;
+
+/**
+ * Shared by every request's DataLoader for a binding, merges the batches those DataLoaders dispatch within
+ * a window into one call to the batch loader. Keys that are already loading for another request join that
+ * load rather than being loaded again, keys are matched with the binding's cache key function if it has one.
+ * Each request's DataLoader still caches its own results
+ */
+class BatchCoalescer<K, V> implements BatchLoader<K, V> {
+  private final BatchLoader<K, V> delegate;
+  private final long windowNanos;
+  private final CacheKey<K> cacheKeyFunction;
+  private final ScheduledExecutorService scheduler;
+  private final Executor executor;
+  // guarded by this, cache keys that are waiting for the window or loading
+  private final Map<Object, CompletableFuture<V>> inFlight;
+  // guarded by this, cache key to DataLoader key
+  private Map<Object, K> pending;
+
+  /**
+   * @param cacheKeyFunction the binding's cache key function, or null to match keys with equals
+   * @param scheduler waits out each window, see {@link DataLoaderScheduler}
+   * @param executor where loads start once the window closes, so they never run on the scheduler's thread
+   */
+  BatchCoalescer(
+      BatchLoader<K, V> delegate,
+      long windowNanos,
+      CacheKey<K> cacheKeyFunction,
+      ScheduledExecutorService scheduler,
+      Executor executor
+  ) {
+    this.delegate = delegate;
+    this.windowNanos = windowNanos;
+    this.cacheKeyFunction = cacheKeyFunction;
+    this.scheduler = scheduler;
+    this.executor = executor;
+    this.inFlight = new HashMap<>();
+    this.pending = new LinkedHashMap<>();
+  }
+
+  @Override
+  public CompletionStage<List<V>> load(List<K> keys) {
+    List<CompletableFuture<V>> futures = new ArrayList<>(keys.size());
+    Map<Object, K> loadNow = null;
+
+    synchronized (this) {
+      boolean wasPending = !pending.isEmpty();
+      for (K key : keys) {
+        Object cacheKey = cacheKeyFunction == null ? key : cacheKeyFunction.getKey(key);
+        CompletableFuture<V> future = inFlight.get(cacheKey);
+        if (future == null) {
+          future = new CompletableFuture<>();
+          inFlight.put(cacheKey, future);
+          pending.put(cacheKey, key);
+        }
+
+        futures.add(future);
+      }
+
+      if (windowNanos <= 0) {
+        loadNow = takePending();
+      } else if (!wasPending && !pending.isEmpty()) {
+        // with the context of the request that opened the window
+        scheduler.schedule(DataLoaderContext.wrapCurrent(this::startPending), windowNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    if (loadNow != null) {
+      loadKeys(loadNow);
+    }
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).handle((ignored, error) -> results(futures));
+  }
+
+  private void startPending() {
+    Map<Object, K> keys = takePending();
+    try {
+      executor.execute(DataLoaderContext.wrapCurrent(() -> loadKeys(keys)));
+    } catch (RejectedExecutionException e) {
+      complete(new ArrayList<>(keys.keySet()), null, e);
+    }
+  }
+
+  private synchronized Map<Object, K> takePending() {
+    Map<Object, K> keys = pending;
+    pending = new LinkedHashMap<>();
+    return keys;
+  }
+
+  private void loadKeys(Map<Object, K> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+
+    List<Object> cacheKeys = new ArrayList<>(keys.keySet());
+    CompletionStage<List<V>> values;
+    try {
+      values = delegate.load(new ArrayList<>(keys.values()));
+    } catch (RuntimeException e) {
+      complete(cacheKeys, null, e);
+      return;
+    }
+
+    values.whenComplete((loaded, error) -> complete(cacheKeys, loaded, error));
+  }
+
+  private void complete(List<Object> cacheKeys, List<V> values, Throwable error) {
+    if (error == null && values.size() != cacheKeys.size()) {
+      error = new IllegalStateException(
+          "Batch loader returned " + values.size() + " values for " + cacheKeys.size() + " keys"
+      );
+    }
+
+    for (int i = 0; i < cacheKeys.size(); i++) {
+      CompletableFuture<V> future;
+      synchronized (this) {
+        future = inFlight.remove(cacheKeys.get(i));
+      }
+
+      if (error == null) {
+        future.complete(values.get(i));
+      } else {
+        future.completeExceptionally(error);
+      }
+    }
+  }
+
+  /**
+   * A failed key's value is its exception, which fails just that key's load
+   */
+  @SuppressWarnings("unchecked")
+  private static <V> List<V> results(List<CompletableFuture<V>> futures) {
+    List<V> results = new ArrayList<>(futures.size());
+    for (CompletableFuture<V> future : futures) {
+      Object result;
+      try {
+        result = future.join();
+      } catch (CompletionException e) {
+        result = e.getCause();
+      }
+
+      results.add((V) result);
+    }
+
+    return results;
+  }
+}
@@ -0,0 +1,13 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The one shape every kind of batch loader is decorated in: a call that takes a batch of keys and completes with
+ * its results. BatchLoader, MappedBatchLoader and LongBatchLoader all convert to and from it with a method reference
+ */
+@FunctionalInterface
+interface BatchFunction<B, R> {
+
+  CompletionStage<R> load(B keys);
+}
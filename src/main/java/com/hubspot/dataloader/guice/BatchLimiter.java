@@ -0,0 +1,75 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many batches a DataLoader has loading at once, batches over the cap start as earlier ones complete
+ */
+class BatchLimiter {
+  private final int maxInFlight;
+  // guarded by this
+  private final Queue<Runnable> waiting;
+  private int inFlight;
+
+  BatchLimiter(int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+    this.waiting = new ArrayDeque<>();
+  }
+
+  <T> CompletionStage<T> submit(Supplier<CompletionStage<T>> batch) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Runnable start = () -> run(batch, result);
+
+    synchronized (this) {
+      if (inFlight >= maxInFlight) {
+        waiting.add(start);
+        return result;
+      }
+
+      inFlight++;
+    }
+
+    start.run();
+    return result;
+  }
+
+  private <T> void run(Supplier<CompletionStage<T>> batch, CompletableFuture<T> result) {
+    CompletionStage<T> stage;
+    try {
+      stage = batch.get();
+    } catch (RuntimeException e) {
+      CompletableFuture<T> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      stage = failed;
+    }
+
+    stage.whenComplete((value, error) -> {
+      // start the next batch before completing this one's keys, which may run a lot of callbacks
+      release();
+
+      if (error == null) {
+        result.complete(value);
+      } else {
+        result.completeExceptionally(error);
+      }
+    });
+  }
+
+  private void release() {
+    Runnable next;
+    synchronized (this) {
+      next = waiting.poll();
+      if (next == null) {
+        inFlight--;
+        return;
+      }
+    }
+
+    // the permit passes straight to the next batch
+    next.run();
+  }
+}
@@ -0,0 +1,79 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A bounded pool for running blocking batch loaders off the caller's thread, see {@link TypedBindingBuilder#withExecutor}.
+ * Once every thread is busy and the queue is full, new batches fail with a RejectedExecutionException
+ */
+public class BatchLoaderExecutor implements Executor {
+  // loads batches the library starts in the background, like collapsed batches and refreshes, for bindings
+  // without an executor of their own, and fails timed out batches. Its scheduler threads only hand work to it
+  static final BatchLoaderExecutor BACKGROUND =
+      newBoundedExecutor("background", Runtime.getRuntime().availableProcessors(), 1024);
+
+  private final ThreadPoolExecutor executor;
+
+  private BatchLoaderExecutor(ThreadPoolExecutor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * @param name used to name the threads
+   * @param threads the most batches that can be loading at once
+   * @param maxQueued the most batches that can be waiting for a thread
+   */
+  public static BatchLoaderExecutor newBoundedExecutor(String name, int threads, int maxQueued) {
+    if (threads <= 0 || maxQueued <= 0) {
+      throw new IllegalArgumentException("Threads and queue size must be positive, got " + threads + " and " + maxQueued);
+    }
+
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        threads,
+        threads,
+        1,
+        TimeUnit.MINUTES,
+        new ArrayBlockingQueue<>(maxQueued),
+        new ThreadFactoryBuilder().setNameFormat("dataloader-" + name + "-%d").setDaemon(true).build()
+    );
+    executor.allowCoreThreadTimeOut(true);
+
+    return new BatchLoaderExecutor(executor);
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    try {
+      executor.execute(command);
+    } catch (RejectedExecutionException e) {
+      throw new RejectedExecutionException(
+          "Batch loader executor is full, " + executor.getActiveCount() + " running and " + getQueueDepth() + " queued",
+          e
+      );
+    }
+  }
+
+  /**
+   * @return the number of batches waiting for a thread
+   */
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * @return the number of batches currently loading
+   */
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,161 @@
+package com.hubspot.dataloader.guice;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Limits how long a binding's batches can take, and how many can be loading at once across every request.
+ * Bound as a singleton named after the DataLoader, so it can be injected to see how often each limit triggers
+ */
+public class BatchLoaderGuard {
+  private final String name;
+  private final AtomicLong timeouts;
+  private final AtomicLong rejections;
+  // only set while the binding is configured
+  private long timeoutNanos;
+  private int maxConcurrentBatches;
+  private Semaphore permits;
+
+  BatchLoaderGuard(String name) {
+    this.name = name;
+    this.timeouts = new AtomicLong();
+    this.rejections = new AtomicLong();
+  }
+
+  void setTimeout(Duration timeout) {
+    this.timeoutNanos = timeout.toNanos();
+  }
+
+  void setMaxConcurrentBatches(int maxConcurrentBatches) {
+    this.maxConcurrentBatches = maxConcurrentBatches;
+    this.permits = new Semaphore(maxConcurrentBatches);
+  }
+
+  /**
+   * @return how many batches have failed because they took longer than the timeout
+   */
+  public long getTimeoutCount() {
+    return timeouts.get();
+  }
+
+  /**
+   * @return how many batches have been rejected because too many were already loading
+   */
+  public long getRejectionCount() {
+    return rejections.get();
+  }
+
+  /**
+   * @return how many batches are loading right now, only tracked with a maximum
+   */
+  public int getLoadingBatches() {
+    return permits == null ? 0 : maxConcurrentBatches - permits.availablePermits();
+  }
+
+  /**
+   * Start the batch if there's room for it. A batch that times out keeps its place until the batch loader
+   * actually completes, since it's still holding on to the backend
+   *
+   * @param scheduler waits out the timeout, see {@link DataLoaderScheduler}
+   * @param timeoutExecutor where a timed out batch fails its keys, so their callbacks don't hold up the scheduler
+   */
+  <T> CompletionStage<T> load(
+      Supplier<CompletionStage<T>> batch,
+      DataLoaderMetrics metrics,
+      ScheduledExecutorService scheduler,
+      Executor timeoutExecutor
+  ) {
+    if (permits != null && !permits.tryAcquire()) {
+      rejections.incrementAndGet();
+      metrics.recordRejection(name);
+      return failed(new RejectedExecutionException(
+          "DataLoader " + name + " already has " + maxConcurrentBatches + " batches loading"
+      ));
+    }
+
+    CompletionStage<T> loading;
+    try {
+      loading = batch.get();
+    } catch (RuntimeException e) {
+      release();
+      throw e;
+    }
+
+    if (permits != null) {
+      loading = loading.whenComplete((values, error) -> release());
+    }
+
+    return timeoutNanos > 0 ? withTimeout(loading, metrics, scheduler, timeoutExecutor) : loading;
+  }
+
+  private <T> CompletionStage<T> withTimeout(
+      CompletionStage<T> loading,
+      DataLoaderMetrics metrics,
+      ScheduledExecutorService scheduler,
+      Executor timeoutExecutor
+  ) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    // whichever of the batch and the timeout gets here first completes the keys
+    AtomicBoolean completed = new AtomicBoolean();
+
+    // the timeout completes the keys, so callbacks chained on them run with the request's context
+    Runnable timeOut = DataLoaderContext.wrapCurrent(() -> {
+      if (!completed.compareAndSet(false, true)) {
+        return;
+      }
+
+      // counted first, so it's visible to anything waiting on the keys
+      timeouts.incrementAndGet();
+      metrics.recordTimeout(name);
+      result.completeExceptionally(new TimeoutException(
+          "DataLoader " + name + " batch didn't complete within " + Duration.ofNanos(timeoutNanos)
+      ));
+    });
+    // the scheduler only waits, the keys are failed on the executor
+    ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+      try {
+        timeoutExecutor.execute(timeOut);
+      } catch (RejectedExecutionException e) {
+        timeOut.run();
+      }
+    }, timeoutNanos, TimeUnit.NANOSECONDS);
+
+    loading.whenComplete((values, error) -> {
+      timeout.cancel(false);
+      if (!completed.compareAndSet(false, true)) {
+        return;
+      }
+
+      if (error == null) {
+        result.complete(values);
+      } else {
+        result.completeExceptionally(error);
+      }
+    });
+
+    return result;
+  }
+
+  private void release() {
+    if (permits != null) {
+      permits.release();
+    }
+  }
+
+  private static <T> CompletableFuture<T> failed(Throwable error) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(error);
+    return future;
+  }
+}
@@ -0,0 +1,157 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.MappedBatchLoader;
+
+final class BatchLoaders {
+
+  private BatchLoaders() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Adapt a MappedBatchLoader the same way DataLoader does, keys missing from the result map load as null
+   */
+  static <K, V> BatchLoader<K, V> fromMapped(MappedBatchLoader<K, V> loader) {
+    return keys -> loader.load(new LinkedHashSet<>(keys)).thenApply(values -> toList(keys, values));
+  }
+
+  static <V> LongBatchLoader<V> fromMapped(LongMappedBatchLoader<V> loader) {
+    return keys -> loader.load(keys).thenApply(values -> {
+      List<V> results = new ArrayList<>(keys.length);
+      // the result map is keyed by Long, so this boxes each key
+      for (long key : keys) {
+        results.add(values.get(key));
+      }
+
+      return results;
+    });
+  }
+
+  /**
+   * Call the loader from one of the executor's threads, so blocking loaders don't hold up the thread that dispatched
+   */
+  static <B, R> BatchFunction<B, R> onExecutor(BatchFunction<B, R> loader, Executor executor) {
+    return keys -> supplyAsync(() -> loader.load(keys), executor);
+  }
+
+  /**
+   * Split each batch into sub-batches of the size the supplier gives when the batch is dispatched, they load
+   * together and the batch completes once they all have
+   */
+  static <B, R> BatchFunction<B, R> split(BatchFunction<B, R> loader, BatchShape<B, R> shape, IntSupplier batchSize) {
+    return keys -> {
+      int size = batchSize.getAsInt();
+      if (shape.size(keys) <= size) {
+        return loader.load(keys);
+      }
+
+      List<CompletableFuture<R>> subBatches = new ArrayList<>();
+      for (B subBatch : shape.split(keys, size)) {
+        subBatches.add(loader.load(subBatch).toCompletableFuture());
+      }
+
+      return CompletableFuture.allOf(subBatches.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+        List<R> results = new ArrayList<>(subBatches.size());
+        for (CompletableFuture<R> subBatch : subBatches) {
+          results.add(subBatch.join());
+        }
+
+        return shape.merge(results);
+      });
+    };
+  }
+
+  /**
+   * Run each batch through the limiter, so only so many are loading at once
+   */
+  static <B, R> BatchFunction<B, R> limited(BatchFunction<B, R> loader, BatchLimiter limiter) {
+    return keys -> limiter.submit(() -> loader.load(keys));
+  }
+
+  /**
+   * Run each batch through the binding's guard, which can reject it or fail it once it takes too long
+   */
+  static <B, R> BatchFunction<B, R> guarded(
+      BatchFunction<B, R> loader,
+      BatchLoaderGuard guard,
+      DataLoaderMetrics metrics,
+      ScheduledExecutorService scheduler,
+      Executor timeoutExecutor
+  ) {
+    return keys -> guard.load(() -> loader.load(keys), metrics, scheduler, timeoutExecutor);
+  }
+
+  /**
+   * Report the size and latency of each batch to the metrics
+   */
+  static <B, R> BatchFunction<B, R> measured(
+      BatchFunction<B, R> loader,
+      BatchShape<B, R> shape,
+      String name,
+      DataLoaderMetrics metrics
+  ) {
+    return keys -> measure(() -> loader.load(keys), name, shape.size(keys), metrics);
+  }
+
+  /**
+   * Prime the request's other DataLoaders with each batch's results, before the batch's keys complete
+   */
+  static <B, R> BatchFunction<B, R> primed(
+      BatchFunction<B, R> loader,
+      BatchShape<B, R> shape,
+      List<DataLoaderPrimer> primers,
+      RequestDataLoaders dataLoaders
+  ) {
+    return keys -> loader.load(keys).thenApply(results -> {
+      for (DataLoaderPrimer primer : primers) {
+        primer.prime(dataLoaders, shape.values(results));
+      }
+
+      return results;
+    });
+  }
+
+  static <K, V> List<V> toList(List<K> keys, Map<K, V> values) {
+    List<V> results = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      results.add(values.get(key));
+    }
+
+    return results;
+  }
+
+  private static <T> CompletionStage<T> measure(
+      Supplier<CompletionStage<T>> supplier,
+      String name,
+      int batchSize,
+      DataLoaderMetrics metrics
+  ) {
+    long start = System.nanoTime();
+    return supplier.get().whenComplete((result, error) -> metrics.recordBatch(name, batchSize, System.nanoTime() - start));
+  }
+
+  private static <T> CompletableFuture<T> supplyAsync(Supplier<CompletionStage<T>> supplier, Executor executor) {
+    try {
+      return CompletableFuture.supplyAsync(supplier, DataLoaderContext.currentExecutor(executor))
+          .thenCompose(Function.identity());
+    } catch (RejectedExecutionException e) {
+      CompletableFuture<T> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+  }
+}
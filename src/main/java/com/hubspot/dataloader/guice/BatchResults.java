@@ -0,0 +1,13 @@
+package com.hubspot.dataloader.guice;
+
+/**
+ * Where a {@link StreamingBatchLoader} reports its results. Each key's load completes as soon as its result is
+ * reported, only the first result for a key counts and keys that aren't in the batch are ignored. Safe to call
+ * from any thread
+ */
+public interface BatchResults<K, V> {
+
+  void complete(K key, V value);
+
+  void fail(K key, Throwable error);
+}
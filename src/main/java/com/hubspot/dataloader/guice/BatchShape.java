@@ -0,0 +1,132 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What the decorators need to know about a kind of batch loader's keys and results
+ */
+abstract class BatchShape<B, R> {
+  static final BatchShape<List<?>, List<?>> LIST = new BatchShape<List<?>, List<?>>() {
+
+    @Override
+    int size(List<?> keys) {
+      return keys.size();
+    }
+
+    @Override
+    Iterable<?> values(List<?> results) {
+      return results;
+    }
+
+    @Override
+    List<List<?>> split(List<?> keys, int size) {
+      List<List<?>> subBatches = new ArrayList<>();
+      for (int i = 0; i < keys.size(); i += size) {
+        subBatches.add(keys.subList(i, Math.min(keys.size(), i + size)));
+      }
+
+      return subBatches;
+    }
+
+    @Override
+    List<?> merge(List<List<?>> results) {
+      return concat(results);
+    }
+  };
+
+  static final BatchShape<Set<?>, Map<?, ?>> MAPPED = new BatchShape<Set<?>, Map<?, ?>>() {
+
+    @Override
+    int size(Set<?> keys) {
+      return keys.size();
+    }
+
+    @Override
+    Iterable<?> values(Map<?, ?> results) {
+      return results.values();
+    }
+
+    @Override
+    List<Set<?>> split(Set<?> keys, int size) {
+      List<Set<?>> subBatches = new ArrayList<>();
+      Set<Object> subBatch = null;
+      for (Object key : keys) {
+        if (subBatch == null || subBatch.size() == size) {
+          subBatch = new LinkedHashSet<>();
+          subBatches.add(subBatch);
+        }
+
+        subBatch.add(key);
+      }
+
+      return subBatches;
+    }
+
+    @Override
+    Map<?, ?> merge(List<Map<?, ?>> results) {
+      Map<Object, Object> merged = new LinkedHashMap<>();
+      for (Map<?, ?> result : results) {
+        merged.putAll(result);
+      }
+
+      return merged;
+    }
+  };
+
+  static final BatchShape<long[], List<?>> LONG = new BatchShape<long[], List<?>>() {
+
+    @Override
+    int size(long[] keys) {
+      return keys.length;
+    }
+
+    @Override
+    Iterable<?> values(List<?> results) {
+      return results;
+    }
+
+    @Override
+    List<long[]> split(long[] keys, int size) {
+      List<long[]> subBatches = new ArrayList<>();
+      for (int i = 0; i < keys.length; i += size) {
+        subBatches.add(Arrays.copyOfRange(keys, i, Math.min(keys.length, i + size)));
+      }
+
+      return subBatches;
+    }
+
+    @Override
+    List<?> merge(List<List<?>> results) {
+      return concat(results);
+    }
+  };
+
+  abstract int size(B keys);
+
+  abstract Iterable<?> values(R results);
+
+  /**
+   * @return the keys in order, in sub-batches of at most the given size
+   */
+  abstract List<B> split(B keys, int size);
+
+  /**
+   * @return the sub-batches' results combined into the results for the whole batch, in the order they were split
+   */
+  abstract R merge(List<R> results);
+
+  private static List<?> concat(List<List<?>> results) {
+    List<Object> merged = new ArrayList<>();
+    for (List<?> result : results) {
+      merged.addAll(result);
+    }
+
+    return merged;
+  }
+}
@@ -0,0 +1,22 @@
+package com.hubspot.dataloader.guice;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.SOURCE;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Put this on a BatchLoader or MappedBatchLoader to have it bound at compile time. Each package with annotated
+ * loaders gets a generated GeneratedDataLoaderModule which binds them with their types already resolved, install
+ * it alongside DataLoaderModule. Duplicate names are reported as compile errors
+ */
+@Target(TYPE)
+@Retention(SOURCE)
+public @interface BindDataLoader {
+
+  /**
+   * @return the name of the DataLoader binding
+   */
+  String value();
+}
@@ -0,0 +1,124 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.CacheKey;
+import org.dataloader.CacheMap;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+
+/**
+ * The request scoped DataLoader for a binding that needs more than a plain DataLoader. Keys are checked
+ * against the binding's shared cache before they're queued, and successful results are added to it.
+ */
+class BoundDataLoader<K, V> extends DataLoader<K, V> {
+  private final SharedDataLoaderCache<K, V> sharedCache;
+  private final CacheMap<Object, CompletableFuture<V>> requestCache;
+  private final boolean cachingEnabled;
+
+  private BoundDataLoader(
+      BatchLoader<K, V> batchLoader,
+      DataLoaderOptions options,
+      SharedDataLoaderCache<K, V> sharedCache,
+      CacheMap<Object, CompletableFuture<V>> requestCache
+  ) {
+    super(batchLoader, options);
+    this.sharedCache = sharedCache;
+    this.requestCache = requestCache;
+    this.cachingEnabled = options.cachingEnabled();
+  }
+
+  /**
+   * @param options this request's copy of the binding's options
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> BoundDataLoader<K, V> create(
+      BatchLoader<K, V> batchLoader,
+      DataLoaderOptions options,
+      SharedDataLoaderCache<K, V> sharedCache
+  ) {
+    // keep a reference to the request cache so we only go to the shared cache when the request hasn't seen the key
+    CacheMap<Object, CompletableFuture<V>> requestCache = options.cacheMap().orElseGet(CacheMap::simpleMap);
+    options.setCacheMap(requestCache);
+
+    CacheKey<K> cacheKeyFunction = options.cacheKeyFunction().orElse(null);
+    return new BoundDataLoader<>(
+        populatingSharedCache(batchLoader, cacheKeyFunction, sharedCache),
+        options,
+        sharedCache,
+        requestCache
+    );
+  }
+
+  @Override
+  public CompletableFuture<V> load(K key, Object keyContext) {
+    Object cacheKey = getCacheKey(key);
+
+    // checked under the DataLoader's lock like its own reads, a bounded request cache can evict while checking
+    synchronized (this) {
+      if (requestCache.containsKey(cacheKey)) {
+        return super.load(key, keyContext);
+      }
+    }
+
+    CompletableFuture<V> cached = getShared(cacheKey);
+    if (cached != null) {
+      if (!cachingEnabled) {
+        return cached;
+      }
+
+      // the DataLoader will count this as a cache hit and return it without queueing the key. Unless the key
+      // was loaded while we were checking the shared cache, then the request keeps that future
+      synchronized (this) {
+        if (!requestCache.containsKey(cacheKey)) {
+          requestCache.set(cacheKey, cached);
+        }
+      }
+    }
+
+    return super.load(key, keyContext);
+  }
+
+  /**
+   * @return a completed future for the key's shared cache entry, or null if it isn't cached
+   */
+  private CompletableFuture<V> getShared(Object cacheKey) {
+    V value = sharedCache.getAndRefresh(cacheKey);
+    if (value != null) {
+      return CompletableFuture.completedFuture(value);
+    }
+
+    Object negative = sharedCache.getNegativeIfPresent(cacheKey);
+    if (SharedDataLoaderCache.isMissing(negative)) {
+      // a missing key loads as null, see findbugs-exclude.xml
+      return CompletableFuture.completedFuture(null);
+    }
+
+    if (negative != null) {
+      CompletableFuture<V> failed = new CompletableFuture<>();
+      failed.completeExceptionally((Throwable) negative);
+      return failed;
+    }
+
+    return null;
+  }
+
+  private static <K, V> BatchLoader<K, V> populatingSharedCache(
+      BatchLoader<K, V> batchLoader,
+      CacheKey<K> cacheKeyFunction,
+      SharedDataLoaderCache<K, V> sharedCache
+  ) {
+    return keys -> batchLoader.load(keys).thenApply(values -> {
+      // size mismatches are left for the DataLoader to report
+      if (values.size() == keys.size()) {
+        for (int i = 0; i < keys.size(); i++) {
+          K key = keys.get(i);
+          sharedCache.populate(cacheKeyFunction == null ? key : cacheKeyFunction.getKey(key), key, values.get(i));
+        }
+      }
+
+      return values;
+    });
+  }
+}
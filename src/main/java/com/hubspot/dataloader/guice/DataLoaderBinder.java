@@ -1,14 +1,26 @@
 package com.hubspot.dataloader.guice;
 
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import org.dataloader.BatchLoader;
 import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
 import org.dataloader.MappedBatchLoader;
 
 import com.fasterxml.classmate.ResolvedType;
 import com.fasterxml.classmate.TypeResolver;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.AbstractModule;
 import com.google.inject.Binder;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
@@ -18,18 +30,24 @@ import com.google.inject.Scopes;
 import com.google.inject.TypeLiteral;
 import com.google.inject.internal.MoreTypes.ParameterizedTypeImpl;
 import com.google.inject.multibindings.MapBinder;
+import com.google.inject.multibindings.OptionalBinder;
 import com.google.inject.name.Names;
-import com.google.inject.servlet.ServletScopes;
 
 public class DataLoaderBinder {
   private static final TypeResolver TYPE_RESOLVER = new TypeResolver();
+  private static final Key<ScheduledExecutorService> SCHEDULER_KEY =
+      Key.get(ScheduledExecutorService.class, DataLoaderScheduler.class);
 
   private final Binder binder;
   private final MapBinder<String, DataLoader> mapBinder;
+  private final MapBinder<String, DataLoaderFactory> factoryMapBinder;
 
   private DataLoaderBinder(Binder binder) {
     this.binder = binder;
     this.mapBinder = MapBinder.newMapBinder(binder, String.class, DataLoader.class);
+    this.factoryMapBinder = MapBinder.newMapBinder(binder, String.class, DataLoaderFactory.class, DataLoaderFactories.class);
+
+    binder.install(new RequestDataLoadersModule());
   }
 
   public static DataLoaderBinder newDataLoaderBinder(Binder binder) {
@@ -37,98 +55,679 @@ public class DataLoaderBinder {
   }
 
   public TypedBindingBuilder bindDataLoader(String name) {
-    return new TypedBindingBuilder() {
-
-      @Override
-      @SuppressWarnings("unchecked")
-      public DataLoaderBinder toBatchLoader(Class<? extends BatchLoader> loaderClass) {
-        // generate a random name, request scoped version should only be used internally
-        Key<DataLoader<?, ?>> requestScopedKey = Key.get(
-            new TypeLiteral<DataLoader<?, ?>>() {},
-            Names.named(UUID.randomUUID().toString())
+    return new BindingBuilder(name);
+  }
+
+  private class BindingBuilder implements TypedBindingBuilder {
+    private final String name;
+    private DataLoaderOptions options;
+    private Key<? extends DataLoaderOptions> optionsKey;
+    private SharedCacheOptions sharedCacheOptions;
+    private Executor executor;
+    private Key<? extends Executor> executorKey;
+    private Duration collapsingWindow;
+    private Type[] typeParameters;
+    private int subBatchSize;
+    private int maxConcurrentSubBatches;
+    private AdaptiveBatchSize adaptiveBatchSize;
+    private final List<DataLoaderPrimer> primers;
+    private RequestCacheOptions requestCacheOptions;
+    private BatchLoaderGuard guard;
+
+    private BindingBuilder(String name) {
+      this.name = name;
+      this.primers = new ArrayList<>();
+    }
+
+    @Override
+    public TypedBindingBuilder withOptions(DataLoaderOptions options) {
+      checkNoCacheMap(options);
+
+      this.options = options;
+      this.optionsKey = null;
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withOptions(Key<? extends DataLoaderOptions> optionsKey) {
+      this.options = null;
+      this.optionsKey = optionsKey;
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withSharedCache(SharedCacheOptions sharedCacheOptions) {
+      this.sharedCacheOptions = sharedCacheOptions;
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withExecutor(Executor executor) {
+      this.executor = executor;
+      this.executorKey = null;
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withExecutor(Key<? extends Executor> executorKey) {
+      this.executor = null;
+      this.executorKey = executorKey;
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withCollapsing(Duration window) {
+      if (window.isNegative()) {
+        throw new IllegalArgumentException("Collapsing window can't be negative, got " + window);
+      }
+
+      this.collapsingWindow = window;
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withSubBatches(int subBatchSize, int maxConcurrentSubBatches) {
+      if (subBatchSize <= 0 || maxConcurrentSubBatches <= 0) {
+        throw new IllegalArgumentException(
+            "Sub-batch size and concurrency must be positive, got " + subBatchSize + " and " + maxConcurrentSubBatches
+        );
+      }
+
+      checkNotSubBatchedAndAdaptive(true, adaptiveBatchSize != null);
+      this.subBatchSize = subBatchSize;
+      this.maxConcurrentSubBatches = maxConcurrentSubBatches;
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withAdaptiveBatchSize(AdaptiveBatchSizeOptions adaptiveBatchSizeOptions) {
+      checkNotSubBatchedAndAdaptive(subBatchSize > 0, true);
+      this.adaptiveBatchSize = new AdaptiveBatchSize(adaptiveBatchSizeOptions);
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withTimeout(Duration timeout) {
+      if (timeout.isNegative() || timeout.isZero()) {
+        throw new IllegalArgumentException("Timeout must be positive, got " + timeout);
+      }
+
+      getGuard().setTimeout(timeout);
+      return this;
+    }
+
+    @Override
+    public TypedBindingBuilder withMaxConcurrentBatches(int maxConcurrentBatches) {
+      if (maxConcurrentBatches <= 0) {
+        throw new IllegalArgumentException("Max concurrent batches must be positive, got " + maxConcurrentBatches);
+      }
+
+      getGuard().setMaxConcurrentBatches(maxConcurrentBatches);
+      return this;
+    }
+
+    private BatchLoaderGuard getGuard() {
+      if (guard == null) {
+        guard = new BatchLoaderGuard(name);
+      }
+
+      return guard;
+    }
+
+    @Override
+    public TypedBindingBuilder withRequestCache(RequestCacheOptions requestCacheOptions) {
+      this.requestCacheOptions = requestCacheOptions;
+      return this;
+    }
+
+    @Override
+    public <V> TypedBindingBuilder withPriming(String dataLoaderName, Function<? super V, ?> keyFunction) {
+      primers.add(DataLoaderPrimer.of(dataLoaderName, keyFunction));
+      return this;
+    }
+
+    @Override
+    public <V, T> TypedBindingBuilder withPriming(
+        String dataLoaderName,
+        Function<? super V, ? extends Iterable<? extends T>> values,
+        Function<? super T, ?> keyFunction
+    ) {
+      primers.add(DataLoaderPrimer.ofEach(dataLoaderName, values, keyFunction));
+      return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataLoaderBinder toBatchLoader(Class<? extends BatchLoader> loaderClass) {
+      Function<Injector, BatchLoader> newBatchLoader = injector -> {
+        BatchLoader batchLoader = injector.getInstance(loaderClass);
+        return decorated(injector, BatchShape.LIST, batchLoader::load, getExecutor(injector))::load;
+      };
+
+      return bindBatchLoader(newBatchLoader, loaderClass, BatchLoader.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataLoaderBinder toMappedBatchLoader(Class<? extends MappedBatchLoader> loaderClass) {
+      Function<Injector, MappedBatchLoader> newBatchLoader = injector -> {
+        MappedBatchLoader batchLoader = injector.getInstance(loaderClass);
+        return decorated(injector, BatchShape.MAPPED, batchLoader::load, getExecutor(injector))::load;
+      };
+
+      if (sharedCacheOptions == null && collapsingWindow == null) {
+        return addBindings(
+            (injector, dataLoaders) -> {
+              MappedBatchLoader batchLoader =
+                  forRequest(dataLoaders, BatchShape.MAPPED, newBatchLoader.apply(injector)::load)::load;
+              return DataLoader.newMappedDataLoader(batchLoader, newCachedOptions(injector, dataLoaders));
+            },
+            loaderClass,
+            MappedBatchLoader.class
         );
+      }
 
-        binder.bind(requestScopedKey).toProvider(new Provider<DataLoader<?, ?>>() {
+      // the shared cache and collapsing work on list based batch loaders
+      return bindBatchLoader(
+          injector -> BatchLoaders.fromMapped(newBatchLoader.apply(injector)),
+          loaderClass,
+          MappedBatchLoader.class
+      );
+    }
 
-          @Inject
-          Injector injector;
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> DataLoaderBinder toBatchLoader(
+        Class<? extends BatchLoader<K, V>> loaderClass,
+        TypeLiteral<DataLoader<K, V>> dataLoaderType
+    ) {
+      this.typeParameters = getTypeParameters(dataLoaderType);
+      return toBatchLoader((Class<? extends BatchLoader>) loaderClass);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> DataLoaderBinder toMappedBatchLoader(
+        Class<? extends MappedBatchLoader<K, V>> loaderClass,
+        TypeLiteral<DataLoader<K, V>> dataLoaderType
+    ) {
+      this.typeParameters = getTypeParameters(dataLoaderType);
+      return toMappedBatchLoader((Class<? extends MappedBatchLoader>) loaderClass);
+    }
+
+    /**
+     * The DataLoader's type parameters, if they weren't given we resolve them from the batch loader
+     */
+    private Type[] typeParameters(Class<?> loaderClass, Class<?> loaderType) {
+      if (typeParameters == null) {
+        typeParameters = resolveTypeParameters(loaderClass, loaderType);
+      }
 
-          @Override
-          public DataLoader<?, ?> get() {
-            return DataLoader.newDataLoader(injector.getInstance(loaderClass));
-          }
-        }).in(ServletScopes.REQUEST);
+      return typeParameters;
+    }
 
-        return addBindings(requestScopedKey, createKey(name, loaderClass, BatchLoader.class));
+    @SuppressWarnings("unchecked")
+    private DataLoaderBinder bindBatchLoader(
+        Function<Injector, BatchLoader> newBatchLoader,
+        Class<?> loaderClass,
+        Class<?> loaderType
+    ) {
+      Function<Injector, BatchLoader> batchLoaders = newBatchLoader;
+      if (collapsingWindow != null) {
+        Key<BatchCoalescer> coalescerKey = bindCoalescer(newBatchLoader);
+        batchLoaders = injector -> injector.getInstance(coalescerKey);
       }
 
-      @Override
-      @SuppressWarnings("unchecked")
-      public DataLoaderBinder toMappedBatchLoader(Class<? extends MappedBatchLoader> loaderClass) {
-        // generate a random name, request scoped version should only be used internally
-        Key<DataLoader<?, ?>> requestScopedKey = Key.get(
-            new TypeLiteral<DataLoader<?, ?>>() {},
-            Names.named(UUID.randomUUID().toString())
+      Function<Injector, BatchLoader> requestBatchLoader = batchLoaders;
+      if (sharedCacheOptions == null) {
+        return addBindings(
+            (injector, dataLoaders) -> DataLoader.newDataLoader(
+                forRequest(dataLoaders, requestBatchLoader.apply(injector)),
+                newCachedOptions(injector, dataLoaders)
+            ),
+            loaderClass,
+            loaderType
         );
+      }
+
+      Key<SharedDataLoaderCache> sharedCacheKey = bindSharedCache(batchLoaders, loaderClass, loaderType);
+      return addBindings(
+          (injector, dataLoaders) -> BoundDataLoader.create(
+              forRequest(dataLoaders, requestBatchLoader.apply(injector)),
+              newCachedOptions(injector, dataLoaders),
+              injector.getInstance(sharedCacheKey)
+          ),
+          loaderClass,
+          loaderType
+      );
+    }
+
+    @SuppressWarnings("unchecked")
+    private Key<BatchCoalescer> bindCoalescer(Function<Injector, BatchLoader> newBatchLoader) {
+      long windowNanos = collapsingWindow.toNanos();
 
-        binder.bind(requestScopedKey).toProvider(new Provider<DataLoader<?, ?>>() {
+      // one per binding, shared by every request's DataLoader
+      Key<BatchCoalescer> coalescerKey = Key.get(BatchCoalescer.class, Names.named(name));
+      binder.bind(coalescerKey).toProvider(new Provider<BatchCoalescer>() {
 
-          @Inject
-          Injector injector;
+        @Inject
+        Injector injector;
 
-          @Override
-          public DataLoader<?, ?> get() {
-            return DataLoader.newMappedDataLoader(injector.getInstance(loaderClass));
-          }
-        }).in(ServletScopes.REQUEST);
+        @Override
+        public BatchCoalescer get() {
+          return new BatchCoalescer<>(
+              newBatchLoader.apply(injector),
+              windowNanos,
+              newOptions(injector).cacheKeyFunction().orElse(null),
+              injector.getInstance(SCHEDULER_KEY),
+              getBackgroundExecutor(injector)
+          );
+        }
+      }).in(Scopes.SINGLETON);
 
-        return addBindings(requestScopedKey, createKey(name, loaderClass, MappedBatchLoader.class));
+      return coalescerKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Key<SharedDataLoaderCache> bindSharedCache(
+        Function<Injector, BatchLoader> batchLoaders,
+        Class<?> loaderClass,
+        Class<?> loaderType
+    ) {
+      SharedCacheOptions sharedCacheOptions = this.sharedCacheOptions;
+
+      // bound with the same type parameters as the DataLoader so it can be injected to check stats or invalidate
+      Key<SharedDataLoaderCache> sharedCacheKey =
+          createKey(name, typeParameters(loaderClass, loaderType), SharedDataLoaderCache.class);
+      binder.bind(sharedCacheKey).toProvider(new Provider<SharedDataLoaderCache>() {
+
+        @Inject
+        Injector injector;
+
+        @Override
+        public SharedDataLoaderCache get() {
+          // refreshes skip the request's priming and limits, there's no request to apply them to
+          BatchLoader refreshLoader = sharedCacheOptions.refreshAfterWrite() == null ? null : batchLoaders.apply(injector);
+          return new SharedDataLoaderCache<>(
+              sharedCacheOptions,
+              refreshLoader,
+              injector.getInstance(SCHEDULER_KEY),
+              getBackgroundExecutor(injector)
+          );
+        }
+      }).in(Scopes.SINGLETON);
+
+      return sharedCacheKey;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataLoaderBinder toStreamingBatchLoader(Class<? extends StreamingBatchLoader> loaderClass) {
+      if (sharedCacheOptions != null || collapsingWindow != null) {
+        throw new IllegalStateException(
+            "DataLoader " + name + " is a streaming loader, which doesn't support a shared cache or collapsing"
+        );
+      }
+
+      return addBindings(
+          (injector, dataLoaders) -> StreamingDataLoader.create(
+              injector.getInstance(loaderClass),
+              streamingLoader -> {
+                BatchLoader batchLoader = streamingLoader;
+                return forRequest(
+                    dataLoaders,
+                    decorated(injector, BatchShape.LIST, batchLoader::load, getExecutor(injector))::load
+                );
+              },
+              newCachedOptions(injector, dataLoaders)
+          ),
+          loaderClass,
+          StreamingBatchLoader.class
+      );
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> DataLoaderBinder toLoadGroup(
+        Class<? extends GroupBatchLoader> loaderClass,
+        TypeLiteral<DataLoader<K, V>> dataLoaderType
+    ) {
+      if (sharedCacheOptions != null || collapsingWindow != null) {
+        throw new IllegalStateException(
+            "DataLoader " + name + " is in a load group, which doesn't support a shared cache or collapsing"
+        );
       }
 
-      private DataLoaderBinder addBindings(
-          Key<DataLoader<?, ?>> requestScopedKey,
-          Key<DataLoader<?, ?>> singletonKey
-      ) {
-        // bind the data loader directly so it's available for injection
-        binder.bind(singletonKey).toProvider(new Provider<DataLoader<?, ?>>() {
+      this.typeParameters = getTypeParameters(dataLoaderType);
+      return addBindings(
+          (injector, dataLoaders) -> {
+            LoadGroup loadGroup = dataLoaders.getLoadGroup(
+                loaderClass,
+                requestDataLoaders -> new LoadGroup(injector.getInstance(loaderClass), requestDataLoaders)
+            );
 
-          @Inject
-          Injector injector;
+            int ordinal = injector.getInstance(DataLoaderBindings.class).getOrdinal(name);
+            // the executor is used for the group call when this DataLoader's dispatch starts it
+            BatchLoader member = loadGroup.member(name, ordinal, getExecutor(injector));
+            BatchFunction<List<?>, List<?>> batchLoader = decorated(injector, BatchShape.LIST, member::load, null);
+            return DataLoader.newDataLoader(
+                (BatchLoader) forRequest(dataLoaders, BatchShape.LIST, batchLoader)::load,
+                newCachedOptions(injector, dataLoaders)
+            );
+          },
+          loaderClass,
+          GroupBatchLoader.class
+      );
+    }
 
-          @Override
-          public DataLoader<?, ?> get() {
-            Provider<DataLoader<?, ?>> loaderProvider = injector.getProvider(requestScopedKey);
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataLoaderBinder toLongBatchLoader(Class<? extends LongBatchLoader> loaderClass) {
+      return bindLongBatchLoader(injector -> injector.getInstance(loaderClass), loaderClass, LongBatchLoader.class);
+    }
 
-            // use a wrapper so the DataLoader binding can be a singleton
-            return DataLoaderWrapper.wrap(loaderProvider);
-          }
-        }).in(Scopes.SINGLETON);
+    @Override
+    @SuppressWarnings("unchecked")
+    public DataLoaderBinder toLongMappedBatchLoader(Class<? extends LongMappedBatchLoader> loaderClass) {
+      return bindLongBatchLoader(
+          injector -> BatchLoaders.fromMapped((LongMappedBatchLoader<?>) injector.getInstance(loaderClass)),
+          loaderClass,
+          LongMappedBatchLoader.class
+      );
+    }
 
-        // also add to the map binder which we use to build the registry
-        mapBinder.addBinding(name).to(requestScopedKey);
-        return DataLoaderBinder.this;
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private DataLoaderBinder bindLongBatchLoader(
+        Function<Injector, LongBatchLoader> newLoader,
+        Class<?> loaderClass,
+        Class<?> loaderType
+    ) {
+      if (sharedCacheOptions != null || collapsingWindow != null || requestCacheOptions != null) {
+        throw new IllegalStateException(
+            "DataLoader " + name + " is long keyed, which doesn't support a shared cache, collapsing or a request cache"
+        );
       }
-    };
+
+      Function<Injector, LongBatchLoader> newBatchLoader = injector ->
+          decorated(injector, BatchShape.LONG, newLoader.apply(injector)::load, getExecutor(injector))::load;
+
+      Type valueType = typeParameters(loaderClass, loaderType)[0];
+      Key<LongDataLoader<?>> longKey = createKey(name, new Type[] { valueType }, LongDataLoader.class);
+      addBindings(
+          (injector, dataLoaders) -> new RequestLongDataLoader<>(
+              (LongBatchLoader) forRequest(dataLoaders, BatchShape.LONG, newBatchLoader.apply(injector)::load)::load,
+              newOptions(injector)
+          ),
+          longKey,
+          LongDataLoaderWrapper::new
+      );
+
+      // the same singleton is also injectable as a regular DataLoader<Long, V>
+      Key<DataLoader<?, ?>> dataLoaderKey = createKey(name, new Type[] { Long.class, valueType }, DataLoader.class);
+      binder.bind(dataLoaderKey).to((Key) longKey);
+      return DataLoaderBinder.this;
+    }
+
+    private DataLoaderBinder addBindings(
+        BiFunction<Injector, RequestDataLoaders, DataLoader<?, ?>> factory,
+        Class<?> loaderClass,
+        Class<?> loaderType
+    ) {
+      Key<DataLoader<?, ?>> singletonKey = createKey(name, typeParameters(loaderClass, loaderType), DataLoader.class);
+      return addBindings(factory, singletonKey, DataLoaderWrapper::wrap);
+    }
+
+    private <T extends DataLoader<?, ?>> DataLoaderBinder addBindings(
+        BiFunction<Injector, RequestDataLoaders, DataLoader<?, ?>> factory,
+        Key<T> singletonKey,
+        Function<Provider<DataLoader<?, ?>>, T> wrapper
+    ) {
+      if (adaptiveBatchSize != null) {
+        binder.bind(Key.get(AdaptiveBatchSize.class, Names.named(name))).toInstance(adaptiveBatchSize);
+      }
+
+      if (guard != null) {
+        binder.bind(Key.get(BatchLoaderGuard.class, Names.named(name))).toInstance(guard);
+      }
+
+      // creates a new DataLoader each time, used by RequestDataLoaders to populate each request
+      factoryMapBinder.addBinding(name).toProvider(new Provider<DataLoaderFactory>() {
+
+        @Inject
+        Injector injector;
+
+        @Override
+        public DataLoaderFactory get() {
+          return dataLoaders -> factory.apply(injector, dataLoaders);
+        }
+      });
+
+      // the registry's entry is owned by the request's RequestDataLoaders, which only creates it when first used
+      mapBinder.addBinding(name).toProvider(new Provider<DataLoader<?, ?>>() {
+
+        @Inject
+        DataLoaderBindings bindings;
+
+        @Inject
+        Provider<RequestDataLoaders> requestDataLoaders;
+
+        @Override
+        public DataLoader<?, ?> get() {
+          return RequestDataLoaders.current(requestDataLoaders).get(bindings.getOrdinal(name));
+        }
+      });
+
+      // bind the data loader directly so it's available for injection
+      binder.bind(singletonKey).toProvider(new Provider<T>() {
+
+        @Inject
+        DataLoaderBindings bindings;
+
+        @Inject
+        Provider<RequestDataLoaders> requestDataLoaders;
+
+        @Override
+        public T get() {
+          int ordinal = bindings.getOrdinal(name);
+
+          // use a wrapper so the DataLoader binding can be a singleton, each load only needs to find the
+          // current request's DataLoaders and then index into them
+          return wrapper.apply(() -> RequestDataLoaders.current(requestDataLoaders).get(ordinal));
+        }
+      }).in(Scopes.SINGLETON);
+
+      return DataLoaderBinder.this;
+    }
+
+    /**
+     * Each request gets its own copy of the options, so they can be looked up from Guice as late as possible
+     */
+    private DataLoaderOptions newOptions(Injector injector) {
+      DataLoaderOptions bindingOptions = optionsKey == null ? options : injector.getInstance(optionsKey);
+
+      DataLoaderOptions requestOptions;
+      if (bindingOptions == null) {
+        requestOptions = DataLoaderOptions.newOptions();
+      } else {
+        checkNoCacheMap(bindingOptions);
+        requestOptions = new DataLoaderOptions(bindingOptions);
+      }
+
+      if (adaptiveBatchSize != null) {
+        // split at dispatch instead, with the size at the time
+        requestOptions.setMaxBatchSize(-1);
+      } else if (subBatchSize > 0) {
+        requestOptions.setMaxBatchSize(subBatchSize);
+      }
+
+      return requestOptions;
+    }
+
+    /**
+     * The options with a bounded request cache, if the binding has bounds or the request has a budget
+     */
+    private DataLoaderOptions newCachedOptions(Injector injector, RequestDataLoaders dataLoaders) {
+      DataLoaderOptions requestOptions = newOptions(injector);
+
+      boolean hasBudget = injector.getInstance(DataLoaderBindings.class).getRequestCacheBudget() > 0;
+      if (requestCacheOptions != null || hasBudget) {
+        RequestCacheBudget budget = hasBudget ? dataLoaders.getCacheBudget() : null;
+        requestOptions.setCacheMap(new RequestCacheMap<>(requestCacheOptions, budget));
+      }
+
+      return requestOptions;
+    }
+
+    /**
+     * The decorators shared by every request: metrics, then the executor, then the guard. The guard is outside the
+     * executor, so a batch is rejected before it's queued and its timeout includes the time it's queued
+     */
+    private <B, R> BatchFunction<B, R> decorated(
+        Injector injector,
+        BatchShape<B, R> shape,
+        BatchFunction<B, R> loader,
+        Executor executor
+    ) {
+      DataLoaderMetrics metrics = injector.getInstance(DataLoaderMetrics.class);
+      if (metrics != DataLoaderMetrics.none()) {
+        loader = BatchLoaders.measured(loader, shape, name, metrics);
+      }
+
+      if (adaptiveBatchSize != null) {
+        loader = BatchLoaders.measured(loader, shape, name, adaptiveBatchSize.recorder());
+      }
+
+      if (executor != null) {
+        loader = BatchLoaders.onExecutor(loader, executor);
+      }
+
+      if (guard == null) {
+        return loader;
+      }
+
+      return BatchLoaders.guarded(loader, guard, metrics, injector.getInstance(SCHEDULER_KEY), BatchLoaderExecutor.BACKGROUND);
+    }
+
+    /**
+     * The decorators created with each request's DataLoader: the primers prime that request's other DataLoaders
+     * from any thread, and each request gets its own limiter so one request's sub-batches can't starve another's.
+     * An adaptive batch size splits each batch with the size it has settled on when the batch is dispatched
+     */
+    private <B, R> BatchFunction<B, R> forRequest(
+        RequestDataLoaders dataLoaders,
+        BatchShape<B, R> shape,
+        BatchFunction<B, R> loader
+    ) {
+      if (!primers.isEmpty()) {
+        loader = BatchLoaders.primed(loader, shape, primers, dataLoaders);
+      }
+
+      if (maxConcurrentSubBatches > 0) {
+        loader = BatchLoaders.limited(loader, new BatchLimiter(maxConcurrentSubBatches));
+      }
+
+      return adaptiveBatchSize == null ? loader : BatchLoaders.split(loader, shape, adaptiveBatchSize::getBatchSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BatchLoader forRequest(RequestDataLoaders dataLoaders, BatchLoader batchLoader) {
+      return forRequest(dataLoaders, BatchShape.LIST, batchLoader::load)::load;
+    }
+
+    private Executor getExecutor(Injector injector) {
+      return executorKey == null ? executor : injector.getInstance(executorKey);
+    }
+
+    /**
+     * Where loads the library starts in the background begin, so they never run on one of its scheduler threads.
+     * A binding with an executor already loads on it, the load only has to be started
+     */
+    private Executor getBackgroundExecutor(Injector injector) {
+      return getExecutor(injector) == null ? BatchLoaderExecutor.BACKGROUND : MoreExecutors.directExecutor();
+    }
+
+    /**
+     * Both choose the max batch size, and the adaptive split waits for the whole batch where sub-batches don't
+     */
+    private void checkNotSubBatchedAndAdaptive(boolean subBatched, boolean adaptive) {
+      if (subBatched && adaptive) {
+        throw new IllegalStateException(
+            "DataLoader " + name + " can't use both sub-batches and an adaptive batch size"
+        );
+      }
+    }
+
+    private void checkNoCacheMap(DataLoaderOptions options) {
+      if (options.cacheMap().isPresent()) {
+        throw new IllegalArgumentException(
+            "Options for DataLoader " + name + " can't set a CacheMap, it would be shared across requests"
+        );
+      }
+    }
+  }
+
+  private static class RequestDataLoadersModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+      bindScope(DataLoaderScoped.class, DataLoaderScope.INSTANCE);
+      bind(RequestDataLoaders.class).toProvider(RequestDataLoadersPool.class).in(DataLoaderScope.INSTANCE);
+      OptionalBinder.newOptionalBinder(binder(), DispatchStrategy.class)
+          .setDefault()
+          .toInstance(DispatchStrategy.manual());
+      OptionalBinder.newOptionalBinder(binder(), DataLoaderMetrics.class)
+          .setDefault()
+          .toInstance(DataLoaderMetrics.none());
+      OptionalBinder.newOptionalBinder(binder(), SCHEDULER_KEY)
+          .setDefault()
+          .toProvider((Provider<ScheduledExecutorService>) () -> Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder().setNameFormat("dataloader-scheduler-%d").setDaemon(true).build()
+          ))
+          .in(Scopes.SINGLETON);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o != null && getClass().equals(o.getClass());
+    }
+
+    @Override
+    public int hashCode() {
+      return getClass().hashCode();
+    }
   }
 
   /**
    * Extract the type parameters from the batch loader in order to construct the data loader generic type
    * For example, if you have: public class FooBatchLoader implements BatchLoader<Integer, Foo>
-   * Then the generic type we want to construct is DataLoader<Integer, Foo>
+   * Then the type parameters are Integer and Foo
    */
-  @SuppressWarnings("unchecked")
-  private static Key<DataLoader<?, ?>> createKey(String name, Class<?> loaderImpl, Class<?> loaderType) {
+  private static Type[] resolveTypeParameters(Class<?> loaderImpl, Class<?> loaderType) {
     ResolvedType resolvedType = TYPE_RESOLVER.resolve(loaderImpl);
     // need to convert these because Guice's MoreTypes#isFullySpecified doesn't like ResolvedType
-    Type[] loaderParams = resolvedType
+    return resolvedType
         .typeParametersFor(loaderType)
         .stream()
         .map(DataLoaderBinder::convertResolvedType)
         .toArray(Type[]::new);
+  }
+
+  private static Type[] getTypeParameters(TypeLiteral<? extends DataLoader<?, ?>> dataLoaderType) {
+    if (!(dataLoaderType.getType() instanceof ParameterizedType)) {
+      throw new IllegalArgumentException("DataLoader type must have its type parameters, got " + dataLoaderType);
+    }
 
-    Type dataLoaderType =
-        new ParameterizedTypeImpl(null, DataLoader.class, loaderParams);
-    return (Key<DataLoader<?, ?>>) Key.get(dataLoaderType, Names.named(name));
+    return ((ParameterizedType) dataLoaderType.getType()).getActualTypeArguments();
+  }
+
+  /**
+   * Construct the generic type for the DataLoader (or SharedDataLoaderCache) from the loader's type parameters,
+   * for example DataLoader<Integer, Foo>
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> Key<T> createKey(String name, Type[] typeParameters, Class<?> keyType) {
+    Type dataLoaderType = new ParameterizedTypeImpl(null, keyType, typeParameters);
+    return (Key<T>) Key.get(dataLoaderType, Names.named(name));
   }
 
   private static Type convertResolvedType(ResolvedType resolvedType) {
@@ -0,0 +1,78 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.dataloader.DataLoader;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Assigns each bound DataLoader an ordinal so each request can keep its DataLoaders in a flat array
+ */
+@Singleton
+class DataLoaderBindings {
+  private final List<String> names;
+  private final List<DataLoaderFactory> factories;
+  private final Map<String, Integer> ordinals;
+  private Executor dispatchExecutor;
+  private long requestCacheBudget;
+
+  @Inject
+  DataLoaderBindings(@DataLoaderFactories Map<String, DataLoaderFactory> factories) {
+    this.names = new ArrayList<>(factories.keySet());
+    this.factories = new ArrayList<>(factories.values());
+    this.ordinals = new HashMap<>();
+
+    for (int i = 0; i < names.size(); i++) {
+      ordinals.put(names.get(i), i);
+    }
+  }
+
+  @Inject(optional = true)
+  void setDispatchExecutor(@ParallelDispatch Executor dispatchExecutor) {
+    this.dispatchExecutor = dispatchExecutor;
+  }
+
+  @Inject(optional = true)
+  void setRequestCacheBudget(@CacheBudget Long requestCacheBudget) {
+    this.requestCacheBudget = requestCacheBudget;
+  }
+
+  /**
+   * @return how many entries each request's DataLoader caches can hold between them, or 0 if there's no limit
+   */
+  long getRequestCacheBudget() {
+    return requestCacheBudget;
+  }
+
+  /**
+   * @return the executor to dispatch DataLoaders in parallel on, or null to dispatch them on the calling thread
+   */
+  Executor getDispatchExecutor() {
+    return dispatchExecutor;
+  }
+
+  int size() {
+    return names.size();
+  }
+
+  String getName(int ordinal) {
+    return names.get(ordinal);
+  }
+
+  /**
+   * @return the ordinal for this name, or -1 if there's no DataLoader bound with this name
+   */
+  int getOrdinal(String name) {
+    return ordinals.getOrDefault(name, -1);
+  }
+
+  DataLoader<?, ?> create(int ordinal, RequestDataLoaders dataLoaders) {
+    return factories.get(ordinal).create(dataLoaders);
+  }
+}
@@ -0,0 +1,147 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import com.google.inject.Key;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.Provider;
+
+/**
+ * An explicit unit of work for {@link DataLoaderScope}, for code that doesn't run in a servlet request or that
+ * continues a request on other threads. Every thread the work runs on needs to open the context, either directly or
+ * by running through {@link #wrap} or {@link #executor}:
+ * <pre>
+ * DataLoaderContext context = DataLoaderContext.newContext();
+ * try (DataLoaderContext.CloseableContext ignored = context.open()) {
+ *   userDataLoader.load(userId).thenComposeAsync(user -&gt; portalDataLoader.load(user.getPortalId()), context.executor(executor));
+ * }
+ * </pre>
+ */
+public final class DataLoaderContext {
+  private static final ThreadLocal<DataLoaderContext> CURRENT = new ThreadLocal<>();
+  private static final Object NULL = new Object();
+
+  private final Map<Key<?>, Object> objects;
+  private volatile boolean ended;
+
+  private DataLoaderContext() {
+    this.objects = new HashMap<>();
+  }
+
+  public static DataLoaderContext newContext() {
+    return new DataLoaderContext();
+  }
+
+  /**
+   * @return the context open on this thread, or null if there isn't one
+   */
+  static DataLoaderContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Make this the current context on this thread until the returned context is closed, contexts can be nested
+   */
+  public CloseableContext open() {
+    DataLoaderContext previous = CURRENT.get();
+    CURRENT.set(this);
+
+    return () -> {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    };
+  }
+
+  public Runnable wrap(Runnable runnable) {
+    return () -> {
+      try (CloseableContext ignored = open()) {
+        runnable.run();
+      }
+    };
+  }
+
+  public <T> Callable<T> wrap(Callable<T> callable) {
+    return () -> {
+      try (CloseableContext ignored = open()) {
+        return callable.call();
+      }
+    };
+  }
+
+  /**
+   * @return an executor that runs each task on the delegate with this context open, so async continuations can use DataLoaders
+   */
+  public Executor executor(Executor delegate) {
+    return command -> delegate.execute(wrap(command));
+  }
+
+  /**
+   * For the library's own threads, so batch loaders and callbacks they run see the same context as the thread
+   * that handed them the work
+   *
+   * @return the task with the context open on this thread opened around it, or the task if there isn't one
+   */
+  static Runnable wrapCurrent(Runnable task) {
+    DataLoaderContext context = CURRENT.get();
+    return context == null ? task : context.wrap(task);
+  }
+
+  /**
+   * @return the executor with the context open on this thread opened around each task, or the executor if there isn't one
+   */
+  static Executor currentExecutor(Executor delegate) {
+    DataLoaderContext context = CURRENT.get();
+    return context == null ? delegate : context.executor(delegate);
+  }
+
+  /**
+   * End the unit of work, with {@link DataLoaderModule#withPooling} its DataLoaders are handed to a later one.
+   * The context can't be used afterwards
+   */
+  public synchronized void end() {
+    if (ended) {
+      return;
+    }
+
+    ended = true;
+    for (Object object : objects.values()) {
+      if (object instanceof RequestDataLoaders) {
+        ((RequestDataLoaders) object).release();
+      }
+    }
+
+    objects.clear();
+  }
+
+  boolean isEnded() {
+    return ended;
+  }
+
+  @SuppressWarnings("unchecked")
+  synchronized <T> T get(Key<T> key, Provider<T> unscoped) {
+    if (ended) {
+      throw new OutOfScopeException("This DataLoaderContext has ended");
+    }
+
+    Object object = objects.get(key);
+    if (object == null) {
+      T created = unscoped.get();
+      object = created == null ? NULL : created;
+      objects.put(key, object);
+    }
+
+    return object == NULL ? null : (T) object;
+  }
+
+  public interface CloseableContext extends AutoCloseable {
+
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,13 @@
+package com.hubspot.dataloader.guice;
+
+import org.dataloader.DataLoader;
+
+/**
+ * Creates a new DataLoader for the request that owns the given DataLoaders. The owner is passed in rather than
+ * looked up, since a DataLoader can be created off the request's thread, like when another DataLoader primes it
+ */
+@FunctionalInterface
+interface DataLoaderFactory {
+
+  DataLoader<?, ?> create(RequestDataLoaders dataLoaders);
+}
@@ -0,0 +1,48 @@
+package com.hubspot.dataloader.guice;
+
+/**
+ * Receives batch and request metrics for each named DataLoader binding, aggregated across requests. Bind an
+ * implementation backed by your metrics registry with:
+ * <pre>
+ * OptionalBinder.newOptionalBinder(binder, DataLoaderMetrics.class).setBinding().to(MyDataLoaderMetrics.class);
+ * </pre>
+ * Methods are called from request threads and batch loader threads, so should be cheap and thread safe
+ */
+public interface DataLoaderMetrics {
+
+  /**
+   * Called once each batch loader call completes, successfully or not
+   *
+   * @param batchSize the number of keys passed to the batch loader
+   * @param loadNanos how long the batch loader took to complete
+   */
+  default void recordBatch(String name, int batchSize, long loadNanos) {}
+
+  /**
+   * Called once per request for each DataLoader the request used, when its DataLoaders are released. See
+   * {@link DataLoaderReleaseFilter}
+   *
+   * @param loadedKeys the number of keys loaded, including cache hits
+   * @param cacheHits the number of keys that were already in the request cache
+   * @param dispatchRounds the number of times the registry dispatched this DataLoader with keys queued
+   */
+  default void recordRequest(String name, long loadedKeys, long cacheHits, int dispatchRounds) {}
+
+  /**
+   * Called when a batch didn't complete within the binding's timeout, its keys fail with a TimeoutException
+   */
+  default void recordTimeout(String name) {}
+
+  /**
+   * Called when a batch was rejected because the binding already had its maximum batches loading, its keys
+   * fail with a RejectedExecutionException
+   */
+  default void recordRejection(String name) {}
+
+  /**
+   * Doesn't record anything, and skips measuring altogether
+   */
+  static DataLoaderMetrics none() {
+    return NoDataLoaderMetrics.INSTANCE;
+  }
+}
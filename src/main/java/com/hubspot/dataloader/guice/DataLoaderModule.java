@@ -1,39 +1,116 @@
 package com.hubspot.dataloader.guice;
 
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 
-import org.dataloader.DataLoader;
 import org.dataloader.DataLoaderRegistry;
 
 import com.google.inject.Binder;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Provides;
-import com.google.inject.servlet.RequestScoped;
 
 public class DataLoaderModule implements Module {
+  private final boolean lazyRegistry;
+  private final boolean parallelDispatch;
+  private final int poolSize;
+  private final long requestCacheBudget;
+
+  public DataLoaderModule() {
+    this(false, false, 0, 0);
+  }
+
+  private DataLoaderModule(boolean lazyRegistry, boolean parallelDispatch, int poolSize, long requestCacheBudget) {
+    this.lazyRegistry = lazyRegistry;
+    this.parallelDispatch = parallelDispatch;
+    this.poolSize = poolSize;
+    this.requestCacheBudget = requestCacheBudget;
+  }
+
+  /**
+   * Only create each request's DataLoaders when they're first used, rather than creating all of them
+   * with the registry. DataLoaders that are never used in a request are skipped by dispatchAll
+   */
+  public DataLoaderModule withLazyRegistry() {
+    return new DataLoaderModule(true, parallelDispatch, poolSize, requestCacheBudget);
+  }
+
+  /**
+   * Dispatch each request's DataLoaders at the same time rather than one after another. Requires an Executor
+   * bound with {@link DispatchExecutor}, the batch loaders will be called from its threads
+   */
+  public DataLoaderModule withParallelDispatch() {
+    return new DataLoaderModule(lazyRegistry, true, poolSize, requestCacheBudget);
+  }
+
+  /**
+   * Reset each request's DataLoaders when it ends and keep up to this many sets of them for later requests, rather
+   * than creating new ones for every request. Requests end when their {@link DataLoaderContext} is ended or when
+   * they pass back through the {@link DataLoaderReleaseFilter}. DataLoaders that are still loading are never reused
+   */
+  public DataLoaderModule withPooling(int poolSize) {
+    if (poolSize <= 0) {
+      throw new IllegalArgumentException("Pool size must be positive, got " + poolSize);
+    }
+
+    return new DataLoaderModule(lazyRegistry, parallelDispatch, poolSize, requestCacheBudget);
+  }
+
+  /**
+   * Limit how many entries all of a request's DataLoader caches can hold between them. Once a request is over budget,
+   * each DataLoader evicts its own least recently used completed entries as it adds new ones, so the one that's
+   * adding entries makes room while the others keep theirs. Long keyed DataLoaders don't count towards it
+   */
+  public DataLoaderModule withRequestCacheBudget(long maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Request cache budget must be positive, got " + maximumSize);
+    }
+
+    return new DataLoaderModule(lazyRegistry, parallelDispatch, poolSize, maximumSize);
+  }
 
   @Override
   public void configure(Binder binder) {
     // make sure the MapBinder is initialized so we can inject the data loader map
     DataLoaderBinder.newDataLoaderBinder(binder);
+
+    if (parallelDispatch) {
+      binder.bind(Key.get(Executor.class, ParallelDispatch.class)).to(Key.get(Executor.class, DispatchExecutor.class));
+    }
+
+    if (poolSize > 0) {
+      binder.bind(Key.get(Integer.class, DataLoaderPoolSize.class)).toInstance(poolSize);
+    }
+
+    if (requestCacheBudget > 0) {
+      binder.bind(Key.get(Long.class, CacheBudget.class)).toInstance(requestCacheBudget);
+    }
   }
 
   @Provides
-  @RequestScoped
-  public DataLoaderRegistry providesDataLoaderRegistry(Map<String, DataLoader> dataLoaderMap) {
-    DataLoaderRegistry registry = new DataLoaderRegistry();
-    dataLoaderMap.forEach(registry::register);
-
-    return registry;
+  @DataLoaderScoped
+  public DataLoaderRegistry providesDataLoaderRegistry(RequestDataLoaders dataLoaders) {
+    return new RequestDataLoaderRegistry(dataLoaders, lazyRegistry);
   }
 
   @Override
   public boolean equals(Object o) {
-    return o != null && getClass().equals(o.getClass());
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    DataLoaderModule that = (DataLoaderModule) o;
+    return lazyRegistry == that.lazyRegistry
+        && parallelDispatch == that.parallelDispatch
+        && poolSize == that.poolSize
+        && requestCacheBudget == that.requestCacheBudget;
   }
 
   @Override
   public int hashCode() {
-    return getClass().hashCode();
+    return Objects.hash(getClass(), lazyRegistry, parallelDispatch, poolSize, requestCacheBudget);
   }
 }
@@ -0,0 +1,86 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.Collections;
+import java.util.function.Function;
+
+import org.dataloader.DataLoader;
+import org.dataloader.Try;
+
+/**
+ * Primes another of the request's DataLoaders with values taken from a batch loader's results
+ */
+final class DataLoaderPrimer {
+  private final String dataLoaderName;
+  private final Function<Object, ? extends Iterable<?>> values;
+  private final Function<Object, ?> keyFunction;
+
+  private DataLoaderPrimer(
+      String dataLoaderName,
+      Function<Object, ? extends Iterable<?>> values,
+      Function<Object, ?> keyFunction
+  ) {
+    this.dataLoaderName = dataLoaderName;
+    this.values = values;
+    this.keyFunction = keyFunction;
+  }
+
+  /**
+   * Prime the other DataLoader with each result under the key the function extracts from it
+   */
+  @SuppressWarnings("unchecked")
+  static DataLoaderPrimer of(String dataLoaderName, Function<?, ?> keyFunction) {
+    return new DataLoaderPrimer(dataLoaderName, Collections::singletonList, (Function<Object, ?>) keyFunction);
+  }
+
+  /**
+   * Prime the other DataLoader with each of the values nested in a result, like a parent's children
+   */
+  @SuppressWarnings("unchecked")
+  static DataLoaderPrimer ofEach(
+      String dataLoaderName,
+      Function<?, ? extends Iterable<?>> values,
+      Function<?, ?> keyFunction
+  ) {
+    return new DataLoaderPrimer(
+        dataLoaderName,
+        (Function<Object, ? extends Iterable<?>>) values,
+        (Function<Object, ?>) keyFunction
+    );
+  }
+
+  /**
+   * Prime each successful result, errors and nulls are skipped. Keys the other DataLoader has already
+   * cached keep their value
+   */
+  @SuppressWarnings("unchecked")
+  void prime(RequestDataLoaders dataLoaders, Iterable<?> results) {
+    // the batch can complete after its request, there's no one left to use the primed values
+    if (dataLoaders.isReleased()) {
+      return;
+    }
+
+    // creates the other DataLoader for this request if need be, from whichever thread the batch completed on.
+    // A DataLoader that's only registered may not exist in this request
+    DataLoader<Object, Object> dataLoader = dataLoaders.get(dataLoaderName);
+    if (dataLoader == null) {
+      return;
+    }
+
+    for (Object result : results) {
+      if (result instanceof Try) {
+        Try<Object> loaded = (Try<Object>) result;
+        result = loaded.isSuccess() ? loaded.get() : null;
+      }
+
+      if (result == null || result instanceof Throwable) {
+        continue;
+      }
+
+      for (Object value : values.apply(result)) {
+        if (value != null) {
+          dataLoader.prime(keyFunction.apply(value), value);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.hubspot.dataloader.guice;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Releases each request's DataLoaders once the request completes, which reports the request to the bound
+ * {@link DataLoaderMetrics} and, with {@link DataLoaderModule#withPooling}, hands the DataLoaders on to a later
+ * request. Work in a {@link DataLoaderContext} is released when the context ends instead. Install it before any
+ * other filter that uses DataLoaders, with:
+ * <pre>
+ * filter("/*").through(DataLoaderReleaseFilter.class);
+ * </pre>
+ */
+@Singleton
+public class DataLoaderReleaseFilter implements Filter {
+  private final RequestDataLoadersPool pool;
+
+  @Inject
+  DataLoaderReleaseFilter(RequestDataLoadersPool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public void init(FilterConfig filterConfig) {}
+
+  @Override
+  public void doFilter(
+      ServletRequest request,
+      ServletResponse response,
+      FilterChain chain
+  ) throws IOException, ServletException {
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      // a request that never used a DataLoader has nothing to release
+      RequestDataLoaders dataLoaders = pool.getIfCreated();
+      if (dataLoaders != null) {
+        dataLoaders.release();
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {}
+}
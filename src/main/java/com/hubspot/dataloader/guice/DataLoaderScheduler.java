@@ -0,0 +1,26 @@
+package com.hubspot.dataloader.guice;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import com.google.inject.BindingAnnotation;
+
+/**
+ * Marks the ScheduledExecutorService that times collapsing windows, background refreshes and batch timeouts.
+ * It only waits and hands work off, so a single thread is enough. Defaults to one daemon thread for each injector,
+ * bind your own with an OptionalBinder to configure it or shut it down:
+ * <pre>
+ * OptionalBinder.newOptionalBinder(binder, Key.get(ScheduledExecutorService.class, DataLoaderScheduler.class))
+ *     .setBinding()
+ *     .toInstance(scheduler);
+ * </pre>
+ */
+@BindingAnnotation
+@Target({ FIELD, PARAMETER, METHOD })
+@Retention(RUNTIME)
+public @interface DataLoaderScheduler {}
@@ -0,0 +1,50 @@
+package com.hubspot.dataloader.guice;
+
+import com.google.inject.Key;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.servlet.ServletScopes;
+
+/**
+ * The scope of each request's DataLoaders. Objects belong to the {@link DataLoaderContext} open on the current
+ * thread, or to the servlet request if there isn't one
+ */
+public final class DataLoaderScope implements Scope {
+  public static final DataLoaderScope INSTANCE = new DataLoaderScope();
+
+  private DataLoaderScope() {}
+
+  @Override
+  public <T> Provider<T> scope(Key<T> key, Provider<T> unscoped) {
+    return new Provider<T>() {
+      // only scoped to the servlet request when it's first needed, so guice-servlet is only touched without a context
+      private volatile Provider<T> requestScoped;
+
+      @Override
+      public T get() {
+        DataLoaderContext context = DataLoaderContext.current();
+        return context == null ? getRequestScoped().get() : context.get(key, unscoped);
+      }
+
+      private Provider<T> getRequestScoped() {
+        Provider<T> provider = requestScoped;
+        if (provider == null) {
+          provider = ServletScopes.REQUEST.scope(key, unscoped);
+          requestScoped = provider;
+        }
+
+        return provider;
+      }
+
+      @Override
+      public String toString() {
+        return unscoped + "[" + DataLoaderScope.this + "]";
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return "DataLoaderScope";
+  }
+}
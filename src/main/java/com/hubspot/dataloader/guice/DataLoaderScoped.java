@@ -0,0 +1,19 @@
+package com.hubspot.dataloader.guice;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import com.google.inject.ScopeAnnotation;
+
+/**
+ * Apply this to implementation classes or provider methods to scope them like the request's DataLoaders,
+ * see {@link DataLoaderScope}
+ */
+@ScopeAnnotation
+@Target({ TYPE, METHOD })
+@Retention(RUNTIME)
+public @interface DataLoaderScoped {}
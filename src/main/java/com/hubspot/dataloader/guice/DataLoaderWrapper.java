@@ -11,7 +11,7 @@ import com.google.inject.Provider;
 public class DataLoaderWrapper<K, V> extends DataLoader<K, V> {
   private final Provider<DataLoader<?, ?>> delegateProvider;
 
-  private DataLoaderWrapper(Provider<DataLoader<?, ?>> delegateProvider) {
+  DataLoaderWrapper(Provider<DataLoader<?, ?>> delegateProvider) {
     super(key -> null);
     this.delegateProvider = delegateProvider;
   }
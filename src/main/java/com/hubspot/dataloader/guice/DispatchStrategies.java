@@ -0,0 +1,197 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+
+final class DispatchStrategies {
+  static final DispatchStrategy MANUAL = registry -> null;
+  static final DispatchStrategy WHEN_IDLE = WhenIdleDispatcher::new;
+
+  private DispatchStrategies() {
+    throw new AssertionError();
+  }
+
+  static class AfterQueuedKeys implements DispatchStrategy {
+    private final int keys;
+
+    AfterQueuedKeys(int keys) {
+      if (keys <= 0) {
+        throw new IllegalArgumentException("Keys must be positive, got " + keys);
+      }
+
+      this.keys = keys;
+    }
+
+    @Override
+    public RequestDispatcher newRequestDispatcher(DataLoaderRegistry registry) {
+      AtomicInteger queued = new AtomicInteger();
+
+      return new RequestDispatcher() {
+
+        @Override
+        public <V> CompletableFuture<V> loaded(int queuedKeys, CompletableFuture<V> future) {
+          if (queuedKeys > 0 && queued.addAndGet(queuedKeys) >= keys) {
+            queued.set(0);
+            registry.dispatchAll();
+          }
+
+          return future;
+        }
+      };
+    }
+  }
+
+  static class AfterWindow implements DispatchStrategy {
+    private final long windowMicros;
+    private final ScheduledExecutorService scheduler;
+
+    AfterWindow(long windowMicros, ScheduledExecutorService scheduler) {
+      if (windowMicros < 0) {
+        throw new IllegalArgumentException("Window can't be negative, got " + windowMicros);
+      }
+
+      this.windowMicros = windowMicros;
+      this.scheduler = scheduler;
+    }
+
+    @Override
+    public RequestDispatcher newRequestDispatcher(DataLoaderRegistry registry) {
+      AtomicBoolean scheduled = new AtomicBoolean();
+
+      return new RequestDispatcher() {
+
+        @Override
+        public <V> CompletableFuture<V> loaded(int queuedKeys, CompletableFuture<V> future) {
+          if (queuedKeys > 0 && scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(DataLoaderContext.wrapCurrent(() -> {
+              // clear first so keys queued while we're dispatching open a new window
+              scheduled.set(false);
+              registry.dispatchAll();
+            }), windowMicros, TimeUnit.MICROSECONDS);
+          }
+
+          return future;
+        }
+      };
+    }
+  }
+
+  private static class WhenIdleDispatcher implements RequestDispatcher {
+    private final DataLoaderRegistry registry;
+    // completed when a key is queued, only set while a thread is waiting on one of the request's futures
+    private final AtomicReference<CompletableFuture<Boolean>> keysQueued;
+
+    private WhenIdleDispatcher(DataLoaderRegistry registry) {
+      this.registry = registry;
+      this.keysQueued = new AtomicReference<>();
+    }
+
+    @Override
+    public <V> CompletableFuture<V> loaded(int queuedKeys, CompletableFuture<V> future) {
+      if (queuedKeys > 0) {
+        CompletableFuture<Boolean> waiting = keysQueued.get();
+        if (waiting != null && keysQueued.compareAndSet(waiting, null)) {
+          waiting.complete(true);
+        }
+      }
+
+      if (future.isDone()) {
+        return future;
+      }
+
+      DispatchingFuture<V> dispatchingFuture = new DispatchingFuture<>(this);
+      future.whenComplete((value, error) -> {
+        if (error == null) {
+          dispatchingFuture.complete(value);
+        } else {
+          dispatchingFuture.completeExceptionally(error);
+        }
+      });
+
+      return dispatchingFuture;
+    }
+
+    /**
+     * Dispatch until no keys are queued
+     *
+     * @return a future that completes the next time a key is queued
+     */
+    private CompletableFuture<Boolean> dispatchQueued() {
+      while (true) {
+        // set before checking, so a key queued right after the check still completes it
+        CompletableFuture<Boolean> waiting =
+            keysQueued.updateAndGet(current -> current == null ? new CompletableFuture<>() : current);
+        if (queuedKeys() == 0) {
+          return waiting;
+        }
+
+        registry.dispatchAll();
+      }
+    }
+
+    private int queuedKeys() {
+      int queuedKeys = 0;
+      for (DataLoader<?, ?> dataLoader : registry.getDataLoaders()) {
+        queuedKeys += dataLoader.dispatchDepth();
+      }
+
+      return queuedKeys;
+    }
+  }
+
+  /**
+   * Every blocking accessor dispatches until nothing is queued, then waits for either its value or more queued
+   * keys, which the batches in flight may queue as they complete
+   */
+  private static class DispatchingFuture<V> extends CompletableFuture<V> {
+    private final WhenIdleDispatcher dispatcher;
+
+    private DispatchingFuture(WhenIdleDispatcher dispatcher) {
+      this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public V get() throws InterruptedException, ExecutionException {
+      while (!isDone()) {
+        nextEvent().get();
+      }
+
+      return super.get();
+    }
+
+    @Override
+    public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      while (!isDone()) {
+        nextEvent().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      }
+
+      return super.get();
+    }
+
+    @Override
+    public V join() {
+      while (!isDone()) {
+        nextEvent().join();
+      }
+
+      return super.join();
+    }
+
+    /**
+     * @return a future that completes once this does or more keys are queued, it never fails
+     */
+    private CompletableFuture<?> nextEvent() {
+      return CompletableFuture.anyOf(this, dispatcher.dispatchQueued()).handle((value, error) -> null);
+    }
+  }
+}
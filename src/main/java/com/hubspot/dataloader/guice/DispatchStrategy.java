@@ -0,0 +1,56 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.dataloader.DataLoaderRegistry;
+
+/**
+ * Decides when a request's DataLoaders are dispatched, so callers don't need to call dispatchAll themselves.
+ * Bind one with an OptionalBinder to override the default, which leaves dispatching to the caller:
+ * <pre>
+ * OptionalBinder.newOptionalBinder(binder, DispatchStrategy.class)
+ *     .setBinding()
+ *     .toInstance(DispatchStrategy.afterQueuedKeys(100));
+ * </pre>
+ * The strategy is looked up once for each request, so it can also be bound to a request scoped provider.
+ */
+public interface DispatchStrategy {
+
+  /**
+   * Called once for each request that uses its DataLoaders
+   *
+   * @param registry the request's registry, which only includes the DataLoaders that have been used
+   * @return the request's dispatcher, or null to leave dispatching to the caller
+   */
+  RequestDispatcher newRequestDispatcher(DataLoaderRegistry registry);
+
+  /**
+   * Leave dispatching to the caller, this is the default
+   */
+  static DispatchStrategy manual() {
+    return DispatchStrategies.MANUAL;
+  }
+
+  /**
+   * Dispatch every DataLoader in the request once this many keys have been queued since the last dispatch
+   */
+  static DispatchStrategy afterQueuedKeys(int keys) {
+    return new DispatchStrategies.AfterQueuedKeys(keys);
+  }
+
+  /**
+   * Dispatch every DataLoader in the request this many microseconds after the first key is queued, so keys
+   * queued during the window are batched together. Batch loaders will be called from the scheduler's threads.
+   */
+  static DispatchStrategy afterWindow(long windowMicros, ScheduledExecutorService scheduler) {
+    return new DispatchStrategies.AfterWindow(windowMicros, scheduler);
+  }
+
+  /**
+   * Dispatch when a thread is about to wait for a future returned by one of the request's DataLoaders, by calling
+   * get or join on it. Dispatching continues until the future completes, so chained loads are also dispatched.
+   */
+  static DispatchStrategy whenIdle() {
+    return DispatchStrategies.WHEN_IDLE;
+  }
+}
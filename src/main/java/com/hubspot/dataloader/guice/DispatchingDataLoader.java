@@ -0,0 +1,63 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+
+/**
+ * Tells the request's dispatcher about every load, so it can decide when to dispatch. Only put around a
+ * request's DataLoaders when its strategy uses a dispatcher
+ */
+class DispatchingDataLoader<K, V> extends DataLoaderWrapper<K, V> implements LongKeyed<V> {
+  private final DataLoader<K, V> delegate;
+  private final RequestDispatcher dispatcher;
+
+  DispatchingDataLoader(DataLoader<K, V> delegate, RequestDispatcher dispatcher) {
+    super(() -> delegate);
+    this.delegate = delegate;
+    this.dispatcher = dispatcher;
+  }
+
+  @Override
+  public CompletableFuture<V> load(K key) {
+    int dispatchDepth = delegate.dispatchDepth();
+    return loaded(dispatchDepth, delegate.load(key));
+  }
+
+  @Override
+  public CompletableFuture<V> load(K key, Object keyContext) {
+    int dispatchDepth = delegate.dispatchDepth();
+    return loaded(dispatchDepth, delegate.load(key, keyContext));
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(List<K> keys) {
+    int dispatchDepth = delegate.dispatchDepth();
+    return loaded(dispatchDepth, delegate.loadMany(keys));
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(List<K> keys, List<Object> keyContexts) {
+    int dispatchDepth = delegate.dispatchDepth();
+    return loaded(dispatchDepth, delegate.loadMany(keys, keyContexts));
+  }
+
+  @Override
+  public CompletableFuture<V> load(long key) {
+    int dispatchDepth = delegate.dispatchDepth();
+    return loaded(dispatchDepth, LongKeyed.load(delegate, key));
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(long[] keys) {
+    int dispatchDepth = delegate.dispatchDepth();
+    return loaded(dispatchDepth, LongKeyed.loadMany(delegate, keys));
+  }
+
+  private <T> CompletableFuture<T> loaded(int previousDispatchDepth, CompletableFuture<T> future) {
+    // another thread may have dispatched in between
+    int queuedKeys = Math.max(0, delegate.dispatchDepth() - previousDispatchDepth);
+    return dispatcher.loaded(queuedKeys, future);
+  }
+}
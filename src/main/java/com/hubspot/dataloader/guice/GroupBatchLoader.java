@@ -0,0 +1,18 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Loads the keys of several DataLoaders in one call, see {@link TypedBindingBuilder#toLoadGroup}
+ */
+@FunctionalInterface
+public interface GroupBatchLoader {
+
+  /**
+   * @param keys the keys queued by each of the group's DataLoaders, by DataLoader name
+   * @return the values for each DataLoader in the same order as its keys, a DataLoader missing from the map fails its keys
+   */
+  CompletionStage<Map<String, List<?>>> load(Map<String, List<?>> keys);
+}
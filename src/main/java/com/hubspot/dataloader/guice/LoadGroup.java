@@ -0,0 +1,142 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+
+/**
+ * A request's DataLoaders that share a {@link GroupBatchLoader}. When one of them dispatches, the others that
+ * have keys queued are dispatched along with it and all of their keys go to the group loader in one call
+ */
+class LoadGroup {
+  private final GroupBatchLoader loader;
+  private final RequestDataLoaders dataLoaders;
+  // guarded by this
+  private final Set<Integer> members;
+  private List<MemberBatch> pending;
+  private boolean collecting;
+
+  LoadGroup(GroupBatchLoader loader, RequestDataLoaders dataLoaders) {
+    this.loader = loader;
+    this.dataLoaders = dataLoaders;
+    this.members = new LinkedHashSet<>();
+    this.pending = new ArrayList<>();
+  }
+
+  /**
+   * The batch loader for one of the group's DataLoaders
+   *
+   * @param executor where to call the group loader when this member's dispatch starts the call, may be null
+   */
+  @SuppressWarnings("unchecked")
+  synchronized <K, V> BatchLoader<K, V> member(String name, int ordinal, Executor executor) {
+    members.add(ordinal);
+    return keys -> (CompletionStage<List<V>>) (CompletionStage<?>) load(name, ordinal, keys, executor);
+  }
+
+  private CompletionStage<List<?>> load(String name, int ordinal, List<?> keys, Executor executor) {
+    MemberBatch batch = new MemberBatch(name, keys);
+    List<Integer> others;
+    synchronized (this) {
+      pending.add(batch);
+      if (collecting) {
+        // dispatched by another member, which makes the call once they've all queued their keys
+        return batch.future;
+      }
+
+      collecting = true;
+      others = new ArrayList<>(members);
+    }
+
+    for (int other : others) {
+      DataLoader<?, ?> dataLoader = other == ordinal ? null : dataLoaders.getIfCreated(other);
+      if (dataLoader != null && dataLoader.dispatchDepth() > 0) {
+        dataLoader.dispatch();
+      }
+    }
+
+    List<MemberBatch> batches;
+    synchronized (this) {
+      batches = pending;
+      pending = new ArrayList<>();
+      collecting = false;
+    }
+
+    call(batches, executor);
+    return batch.future;
+  }
+
+  private void call(List<MemberBatch> batches, Executor executor) {
+    Map<String, List<Object>> keys = new LinkedHashMap<>();
+    for (MemberBatch batch : batches) {
+      keys.computeIfAbsent(batch.name, ignored -> new ArrayList<>()).addAll(batch.keys);
+    }
+
+    Map<String, List<?>> groupKeys = Collections.unmodifiableMap(keys);
+    CompletableFuture<Map<String, List<?>>> values;
+    try {
+      values = executor == null
+          ? loader.load(groupKeys).toCompletableFuture()
+          : CompletableFuture.supplyAsync(() -> loader.load(groupKeys), DataLoaderContext.currentExecutor(executor))
+              .thenCompose(Function.identity());
+    } catch (RuntimeException e) {
+      // includes a RejectedExecutionException from the executor
+      values = new CompletableFuture<>();
+      values.completeExceptionally(e);
+    }
+
+    values.whenComplete((loaded, error) -> complete(batches, keys, loaded, error));
+  }
+
+  private static void complete(
+      List<MemberBatch> batches,
+      Map<String, List<Object>> keys,
+      Map<String, List<?>> values,
+      Throwable error
+  ) {
+    Map<String, Integer> offsets = new LinkedHashMap<>();
+    for (MemberBatch batch : batches) {
+      if (error != null) {
+        batch.future.completeExceptionally(error);
+        continue;
+      }
+
+      List<?> memberValues = values.get(batch.name);
+      int expected = keys.get(batch.name).size();
+      if (memberValues == null || memberValues.size() != expected) {
+        batch.future.completeExceptionally(new IllegalStateException(
+            "Group batch loader returned " + (memberValues == null ? "no" : memberValues.size())
+                + " values for " + expected + " keys of DataLoader " + batch.name
+        ));
+        continue;
+      }
+
+      int offset = offsets.getOrDefault(batch.name, 0);
+      batch.future.complete(new ArrayList<>(memberValues.subList(offset, offset + batch.keys.size())));
+      offsets.put(batch.name, offset + batch.keys.size());
+    }
+  }
+
+  private static class MemberBatch {
+    private final String name;
+    private final List<?> keys;
+    private final CompletableFuture<List<?>> future;
+
+    private MemberBatch(String name, List<?> keys) {
+      this.name = name;
+      this.keys = keys;
+      this.future = new CompletableFuture<>();
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A BatchLoader keyed by primitive longs, see {@link TypedBindingBuilder#toLongBatchLoader}
+ */
+@FunctionalInterface
+public interface LongBatchLoader<V> {
+
+  /**
+   * @return a value for each key, in the same order as the keys
+   */
+  CompletionStage<List<V>> load(long[] keys);
+}
@@ -0,0 +1,56 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+
+/**
+ * A DataLoader keyed by primitive longs, so ids don't need to be boxed to be loaded, queued or cached.
+ * Bound with {@link TypedBindingBuilder#toLongBatchLoader} and injectable as either LongDataLoader&lt;V&gt;
+ * or DataLoader&lt;Long, V&gt;
+ */
+public abstract class LongDataLoader<V> extends DataLoader<Long, V> implements LongKeyed<V> {
+
+  LongDataLoader() {
+    super(keys -> null);
+  }
+
+  @Override
+  public abstract CompletableFuture<V> load(long key);
+
+  @Override
+  public abstract CompletableFuture<List<V>> loadMany(long[] keys);
+
+  @Override
+  public CompletableFuture<V> load(Long key) {
+    return load(key.longValue());
+  }
+
+  /**
+   * Long batch loaders don't take a context, so the key context is ignored
+   */
+  @Override
+  public CompletableFuture<V> load(Long key, Object keyContext) {
+    return load(key.longValue());
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(List<Long> keys) {
+    return loadMany(toArray(keys));
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(List<Long> keys, List<Object> keyContexts) {
+    return loadMany(toArray(keys));
+  }
+
+  private static long[] toArray(List<Long> keys) {
+    long[] array = new long[keys.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = keys.get(i);
+    }
+
+    return array;
+  }
+}
@@ -0,0 +1,101 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.stats.Statistics;
+
+import com.google.inject.Provider;
+
+/**
+ * The singleton for a long keyed binding, like {@link DataLoaderWrapper} each call goes to the current request's
+ * DataLoader. The wrappers a request puts around its DataLoaders pass primitive keys through, see {@link LongKeyed}
+ */
+class LongDataLoaderWrapper<V> extends LongDataLoader<V> {
+  private final Provider<DataLoader<?, ?>> delegateProvider;
+
+  LongDataLoaderWrapper(Provider<DataLoader<?, ?>> delegateProvider) {
+    this.delegateProvider = delegateProvider;
+  }
+
+  @SuppressWarnings("unchecked")
+  private DataLoader<Long, V> delegate() {
+    return (DataLoader<Long, V>) delegateProvider.get();
+  }
+
+  @Override
+  public CompletableFuture<V> load(long key) {
+    return LongKeyed.load(delegate(), key);
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(long[] keys) {
+    return LongKeyed.loadMany(delegate(), keys);
+  }
+
+  @Override
+  public CompletableFuture<V> load(Long key) {
+    return delegate().load(key);
+  }
+
+  @Override
+  public CompletableFuture<V> load(Long key, Object keyContext) {
+    return delegate().load(key, keyContext);
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(List<Long> keys) {
+    return delegate().loadMany(keys);
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(List<Long> keys, List<Object> keyContexts) {
+    return delegate().loadMany(keys, keyContexts);
+  }
+
+  @Override
+  public CompletableFuture<List<V>> dispatch() {
+    return delegate().dispatch();
+  }
+
+  @Override
+  public List<V> dispatchAndJoin() {
+    return delegate().dispatchAndJoin();
+  }
+
+  @Override
+  public int dispatchDepth() {
+    return delegate().dispatchDepth();
+  }
+
+  @Override
+  public DataLoader<Long, V> clear(Long key) {
+    return delegate().clear(key);
+  }
+
+  @Override
+  public DataLoader<Long, V> clearAll() {
+    return delegate().clearAll();
+  }
+
+  @Override
+  public DataLoader<Long, V> prime(Long key, V value) {
+    return delegate().prime(key, value);
+  }
+
+  @Override
+  public DataLoader<Long, V> prime(Long key, Exception error) {
+    return delegate().prime(key, error);
+  }
+
+  @Override
+  public Object getCacheKey(Long key) {
+    return delegate().getCacheKey(key);
+  }
+
+  @Override
+  public Statistics getStatistics() {
+    return delegate().getStatistics();
+  }
+}
@@ -0,0 +1,44 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+
+/**
+ * Loads primitive long keys without boxing them. Implemented by {@link LongDataLoader} and by the wrappers a request
+ * puts around its DataLoaders, so a long keyed DataLoader stays unboxed however it's wrapped
+ */
+interface LongKeyed<V> {
+
+  CompletableFuture<V> load(long key);
+
+  CompletableFuture<List<V>> loadMany(long[] keys);
+
+  /**
+   * @return the key loaded through the DataLoader, only boxed if the DataLoader isn't long keyed
+   */
+  @SuppressWarnings("unchecked")
+  static <V> CompletableFuture<V> load(DataLoader<?, V> dataLoader, long key) {
+    if (dataLoader instanceof LongKeyed) {
+      return ((LongKeyed<V>) dataLoader).load(key);
+    }
+
+    return ((DataLoader<Long, V>) dataLoader).load(key);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <V> CompletableFuture<List<V>> loadMany(DataLoader<?, V> dataLoader, long[] keys) {
+    if (dataLoader instanceof LongKeyed) {
+      return ((LongKeyed<V>) dataLoader).loadMany(keys);
+    }
+
+    List<Long> boxed = new ArrayList<>(keys.length);
+    for (long key : keys) {
+      boxed.add(key);
+    }
+
+    return ((DataLoader<Long, V>) dataLoader).loadMany(boxed);
+  }
+}
@@ -0,0 +1,118 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing map from primitive long keys to non-null values, so long keyed DataLoaders
+ * don't box their keys. Not thread safe
+ */
+class LongMap<V> {
+  private static final int MIN_CAPACITY = 16;
+
+  private long[] keys;
+  private Object[] values;
+  private int size;
+
+  LongMap() {
+    this.keys = new long[MIN_CAPACITY];
+    this.values = new Object[MIN_CAPACITY];
+  }
+
+  int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  V get(long key) {
+    int mask = keys.length - 1;
+    for (int i = index(key, mask); values[i] != null; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return (V) values[i];
+      }
+    }
+
+    return null;
+  }
+
+  void put(long key, V value) {
+    int mask = keys.length - 1;
+    int i = index(key, mask);
+    while (values[i] != null) {
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+
+      i = (i + 1) & mask;
+    }
+
+    keys[i] = key;
+    values[i] = value;
+    // keep at most half full so probes stay short
+    if (++size * 2 > keys.length) {
+      resize(keys.length * 2);
+    }
+  }
+
+  void remove(long key) {
+    int mask = keys.length - 1;
+    int i = index(key, mask);
+    while (values[i] != null && keys[i] != key) {
+      i = (i + 1) & mask;
+    }
+
+    if (values[i] == null) {
+      return;
+    }
+
+    // shift back any later entries in the same run so lookups don't stop at the gap
+    int gap = i;
+    for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+      int home = index(keys[j], mask);
+      if (((j - home) & mask) >= ((j - gap) & mask)) {
+        keys[gap] = keys[j];
+        values[gap] = values[j];
+        gap = j;
+      }
+    }
+
+    values[gap] = null;
+    size--;
+  }
+
+  void clear() {
+    if (keys.length > MIN_CAPACITY) {
+      keys = new long[MIN_CAPACITY];
+      values = new Object[MIN_CAPACITY];
+    } else {
+      Arrays.fill(values, null);
+    }
+
+    size = 0;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new long[capacity];
+    values = new Object[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldValues[j] != null) {
+        int i = index(oldKeys[j], mask);
+        while (values[i] != null) {
+          i = (i + 1) & mask;
+        }
+
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  private static int index(long key, int mask) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+}
@@ -0,0 +1,18 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A MappedBatchLoader keyed by primitive longs, see {@link TypedBindingBuilder#toLongMappedBatchLoader}.
+ * Only the keys passed in are primitive, the results are looked up by boxing each key again, so a
+ * {@link LongBatchLoader} avoids boxing altogether
+ */
+@FunctionalInterface
+public interface LongMappedBatchLoader<V> {
+
+  /**
+   * @return the values that were found, keys missing from the map load as null
+   */
+  CompletionStage<Map<Long, V>> load(long[] keys);
+}
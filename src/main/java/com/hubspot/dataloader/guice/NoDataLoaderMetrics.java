@@ -0,0 +1,5 @@
+package com.hubspot.dataloader.guice;
+
+enum NoDataLoaderMetrics implements DataLoaderMetrics {
+  INSTANCE
+}
@@ -0,0 +1,255 @@
+package com.hubspot.dataloader.guice;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The second tier of a shared cache. Holds the entries evicted from the heap tier encoded in direct buffers,
+ * so they don't add to the heap the garbage collector has to trace, and evicts the least recently used once
+ * its maximum size is used up. An entry leaves this tier when it's read, to be put back on heap.
+ * <p>
+ * The buffers are large slabs split into fixed size blocks, allocated as the tier fills up and then kept.
+ * Each entry takes as many blocks as its encoded value needs, and an evicted entry's blocks go on a free list
+ * for the next one, so the maximum size bounds the native memory and evicting never leaves buffers for the
+ * garbage collector to clean up
+ */
+class OffHeapCache<K, V> {
+  static final int BLOCK_BYTES = 1024;
+  private static final int SLAB_BYTES = 64 * 1024 * 1024;
+  private static final int[] NO_BLOCKS = new int[0];
+
+  private final int maximumBlocks;
+  private final int blocksPerSlab;
+  private final long expireAfterWriteNanos;
+  private final ValueCodec<V> codec;
+  // the keys in entries, so lookups and invalidations that miss, like most misses on heap, don't need the lock
+  private final Set<Object> keys;
+  // everything below is guarded by this
+  private final List<ByteBuffer> slabs;
+  // in the order the entries were put, the first is the least recently used since a read takes the entry out
+  private final LinkedHashMap<Object, Slot<K>> entries;
+  private int[] freeBlocks;
+  private int freeCount;
+  // blocks past this one have never been used
+  private int nextUnusedBlock;
+  private int usedBlocks;
+  private final AtomicLong hitCount;
+  private final AtomicLong codecErrorCount;
+
+  OffHeapCache(long maximumBytes, long expireAfterWriteNanos, ValueCodec<V> codec) {
+    this.maximumBlocks = (int) Math.min(maximumBytes / BLOCK_BYTES, Integer.MAX_VALUE);
+    this.blocksPerSlab = (int) Math.min(maximumBlocks, SLAB_BYTES / BLOCK_BYTES);
+    this.expireAfterWriteNanos = expireAfterWriteNanos;
+    this.codec = codec;
+    this.slabs = new ArrayList<>();
+    this.entries = new LinkedHashMap<>();
+    this.keys = ConcurrentHashMap.newKeySet();
+    this.freeBlocks = NO_BLOCKS;
+    this.hitCount = new AtomicLong();
+    this.codecErrorCount = new AtomicLong();
+  }
+
+  /**
+   * Keep an entry the heap tier evicted
+   */
+  void put(Object cacheKey, K key, V value, long writtenNanos) {
+    byte[] encoded;
+    try {
+      encoded = codec.encode(value);
+    } catch (RuntimeException e) {
+      // it's only a cache, drop the entry
+      codecErrorCount.incrementAndGet();
+      return;
+    }
+
+    int blockCount = (encoded.length + BLOCK_BYTES - 1) / BLOCK_BYTES;
+    synchronized (this) {
+      free(removeEntry(cacheKey));
+      if (blockCount > maximumBlocks) {
+        return;
+      }
+
+      Iterator<Map.Entry<Object, Slot<K>>> leastRecentlyUsed = entries.entrySet().iterator();
+      while (maximumBlocks - usedBlocks < blockCount) {
+        Map.Entry<Object, Slot<K>> evicted = leastRecentlyUsed.next();
+        leastRecentlyUsed.remove();
+        keys.remove(evicted.getKey());
+        free(evicted.getValue());
+      }
+
+      int[] blocks = new int[blockCount];
+      for (int i = 0; i < blockCount; i++) {
+        blocks[i] = allocate();
+        int offset = i * BLOCK_BYTES;
+        block(blocks[i]).put(encoded, offset, Math.min(BLOCK_BYTES, encoded.length - offset));
+      }
+
+      entries.put(cacheKey, new Slot<>(blocks, encoded.length, key, writtenNanos));
+      keys.add(cacheKey);
+    }
+  }
+
+  /**
+   * Take the entry out of this tier
+   *
+   * @return the entry, or null if it isn't here or has expired
+   */
+  Stored<K> remove(Object cacheKey) {
+    if (!keys.contains(cacheKey)) {
+      return null;
+    }
+
+    Stored<K> stored;
+    synchronized (this) {
+      Slot<K> slot = removeEntry(cacheKey);
+      if (slot == null) {
+        return null;
+      }
+
+      if (System.nanoTime() - slot.writtenNanos > expireAfterWriteNanos) {
+        free(slot);
+        return null;
+      }
+
+      // copied out before the blocks can be reused
+      byte[] encoded = new byte[slot.length];
+      for (int i = 0; i < slot.blocks.length; i++) {
+        int offset = i * BLOCK_BYTES;
+        block(slot.blocks[i]).get(encoded, offset, Math.min(BLOCK_BYTES, slot.length - offset));
+      }
+
+      free(slot);
+      stored = new Stored<>(encoded, slot.key, slot.writtenNanos);
+    }
+
+    hitCount.incrementAndGet();
+    return stored;
+  }
+
+  /**
+   * @return the stored value, or null if it can't be decoded
+   */
+  V decode(Stored<K> stored) {
+    try {
+      return codec.decode(stored.encoded);
+    } catch (RuntimeException e) {
+      codecErrorCount.incrementAndGet();
+      return null;
+    }
+  }
+
+  void invalidate(Object cacheKey) {
+    if (!keys.contains(cacheKey)) {
+      return;
+    }
+
+    synchronized (this) {
+      free(removeEntry(cacheKey));
+    }
+  }
+
+  synchronized void invalidateAll() {
+    for (Slot<K> slot : entries.values()) {
+      free(slot);
+    }
+
+    entries.clear();
+    keys.clear();
+  }
+
+  synchronized long size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the bytes of the blocks holding entries, the slabs themselves are kept once allocated
+   */
+  synchronized long bytes() {
+    return (long) usedBlocks * BLOCK_BYTES;
+  }
+
+  long getHitCount() {
+    return hitCount.get();
+  }
+
+  long getCodecErrorCount() {
+    return codecErrorCount.get();
+  }
+
+  private Slot<K> removeEntry(Object cacheKey) {
+    keys.remove(cacheKey);
+    return entries.remove(cacheKey);
+  }
+
+  private int allocate() {
+    usedBlocks++;
+    if (freeCount > 0) {
+      return freeBlocks[--freeCount];
+    }
+
+    if (nextUnusedBlock % blocksPerSlab == 0) {
+      slabs.add(ByteBuffer.allocateDirect(Math.min(maximumBlocks - nextUnusedBlock, blocksPerSlab) * BLOCK_BYTES));
+    }
+
+    return nextUnusedBlock++;
+  }
+
+  private void free(Slot<K> slot) {
+    if (slot == null) {
+      return;
+    }
+
+    if (freeCount + slot.blocks.length > freeBlocks.length) {
+      freeBlocks = Arrays.copyOf(freeBlocks, Math.max(freeCount + slot.blocks.length, freeBlocks.length * 2));
+    }
+
+    for (int block : slot.blocks) {
+      freeBlocks[freeCount++] = block;
+    }
+
+    usedBlocks -= slot.blocks.length;
+  }
+
+  /**
+   * @return a view of the block, positioned at its start
+   */
+  private ByteBuffer block(int block) {
+    ByteBuffer view = slabs.get(block / blocksPerSlab).duplicate();
+    view.position((block % blocksPerSlab) * BLOCK_BYTES);
+    return view;
+  }
+
+  private static class Slot<K> {
+    private final int[] blocks;
+    private final int length;
+    private final K key;
+    private final long writtenNanos;
+
+    private Slot(int[] blocks, int length, K key, long writtenNanos) {
+      this.blocks = blocks;
+      this.length = length;
+      this.key = key;
+      this.writtenNanos = writtenNanos;
+    }
+  }
+
+  static class Stored<K> {
+    private final byte[] encoded;
+    final K key;
+    final long writtenNanos;
+
+    private Stored(byte[] encoded, K key, long writtenNanos) {
+      this.encoded = encoded;
+      this.key = key;
+      this.writtenNanos = writtenNanos;
+    }
+  }
+}
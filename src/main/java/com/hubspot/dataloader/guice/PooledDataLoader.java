@@ -0,0 +1,86 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dataloader.DataLoader;
+import org.dataloader.stats.Statistics;
+
+/**
+ * A request's DataLoader that can be reset and handed to a later request, see {@link DataLoaderModule#withPooling}.
+ * Counts its dispatches so it's only reset once everything it loaded has completed, and only reports the
+ * statistics since it was last reset
+ */
+class PooledDataLoader<K, V> extends DataLoaderWrapper<K, V> implements LongKeyed<V> {
+  private final DataLoader<K, V> delegate;
+  private final AtomicInteger dispatching;
+  private volatile Statistics baseline;
+
+  PooledDataLoader(DataLoader<K, V> delegate) {
+    super(() -> delegate);
+    this.delegate = delegate;
+    this.dispatching = new AtomicInteger();
+    this.baseline = new Statistics();
+  }
+
+  @Override
+  public CompletableFuture<V> load(long key) {
+    return LongKeyed.load(delegate, key);
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(long[] keys) {
+    return LongKeyed.loadMany(delegate, keys);
+  }
+
+  @Override
+  public CompletableFuture<List<V>> dispatch() {
+    dispatching.incrementAndGet();
+    try {
+      return delegate.dispatch().whenComplete((values, error) -> dispatching.decrementAndGet());
+    } catch (RuntimeException e) {
+      dispatching.decrementAndGet();
+      throw e;
+    }
+  }
+
+  @Override
+  public List<V> dispatchAndJoin() {
+    dispatching.incrementAndGet();
+    try {
+      return delegate.dispatchAndJoin();
+    } finally {
+      dispatching.decrementAndGet();
+    }
+  }
+
+  @Override
+  public Statistics getStatistics() {
+    Statistics statistics = delegate.getStatistics();
+    Statistics since = baseline;
+    return new Statistics(
+        statistics.getLoadCount() - since.getLoadCount(),
+        statistics.getLoadErrorCount() - since.getLoadErrorCount(),
+        statistics.getBatchInvokeCount() - since.getBatchInvokeCount(),
+        statistics.getBatchLoadCount() - since.getBatchLoadCount(),
+        statistics.getBatchLoadExceptionCount() - since.getBatchLoadExceptionCount(),
+        statistics.getCacheHitCount() - since.getCacheHitCount()
+    );
+  }
+
+  /**
+   * Forget everything the last request loaded
+   *
+   * @return false if it still has keys queued or batches loading, in which case it can't be reused
+   */
+  boolean reset() {
+    if (dispatching.get() > 0 || delegate.dispatchDepth() > 0) {
+      return false;
+    }
+
+    delegate.clearAll();
+    baseline = delegate.getStatistics();
+    return true;
+  }
+}
@@ -0,0 +1,33 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The number of entries all of a request's DataLoader caches can hold between them,
+ * see {@link DataLoaderModule#withRequestCacheBudget}
+ */
+class RequestCacheBudget {
+  private final long maximumSize;
+  private final AtomicLong size;
+
+  RequestCacheBudget(long maximumSize) {
+    this.maximumSize = maximumSize;
+    this.size = new AtomicLong();
+  }
+
+  void add() {
+    size.incrementAndGet();
+  }
+
+  void remove() {
+    size.decrementAndGet();
+  }
+
+  boolean isExceeded() {
+    return size.get() > maximumSize;
+  }
+
+  long size() {
+    return size.get();
+  }
+}
@@ -0,0 +1,156 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import org.dataloader.CacheMap;
+
+/**
+ * A request's DataLoader cache that evicts its least recently used completed entries once it's over its maximum
+ * size or weight, or once the request is over its budget. Keys that are still loading are never evicted, so loads
+ * of the same key keep sharing a batch.
+ *
+ * Entries are only evicted from the cache being written to. DataLoader checks and reads its cache under its own
+ * lock, evicting from another DataLoader's cache could remove an entry in between
+ */
+class RequestCacheMap<V> implements CacheMap<Object, CompletableFuture<V>> {
+  // completed entries are looked for among this many of the oldest on each write, so keys
+  // that are still loading can't make every write scan the whole cache
+  private static final int MAX_EVICTION_SCAN = 64;
+  private static final long LOADING = -1;
+  private static final long REMOVED = -2;
+
+  private final long maximumSize;
+  private final long maximumWeight;
+  private final ToLongFunction<Object> weigher;
+  private final RequestCacheBudget budget;
+  // guarded by itself, in access order
+  private final LinkedHashMap<Object, Entry<V>> entries;
+  private final AtomicLong weight;
+
+  /**
+   * @param options the binding's bounds, or null if it only counts towards the budget
+   * @param budget the request's budget, or null if there isn't one
+   */
+  RequestCacheMap(RequestCacheOptions options, RequestCacheBudget budget) {
+    this.maximumSize = options == null ? Long.MAX_VALUE : options.maximumSize();
+    this.maximumWeight = options == null ? Long.MAX_VALUE : options.maximumWeight();
+    this.weigher = options == null ? null : options.weigher();
+    this.budget = budget;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    this.weight = new AtomicLong();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    synchronized (entries) {
+      return entries.containsKey(key);
+    }
+  }
+
+  @Override
+  public CompletableFuture<V> get(Object key) {
+    synchronized (entries) {
+      Entry<V> entry = entries.get(key);
+      return entry == null ? null : entry.future;
+    }
+  }
+
+  @Override
+  public CacheMap<Object, CompletableFuture<V>> set(Object key, CompletableFuture<V> future) {
+    synchronized (entries) {
+      Entry<V> entry = new Entry<>(future);
+      removed(entries.put(key, entry));
+      if (budget != null) {
+        budget.add();
+      }
+
+      if (weigher != null) {
+        future.whenComplete((value, error) -> weigh(entry, value));
+      }
+
+      evict();
+      return this;
+    }
+  }
+
+  @Override
+  public CacheMap<Object, CompletableFuture<V>> delete(Object key) {
+    synchronized (entries) {
+      removed(entries.remove(key));
+      return this;
+    }
+  }
+
+  @Override
+  public CacheMap<Object, CompletableFuture<V>> clear() {
+    synchronized (entries) {
+      entries.values().forEach(this::removed);
+      entries.clear();
+      return this;
+    }
+  }
+
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  long weight() {
+    return weight.get();
+  }
+
+  private void evict() {
+    Iterator<Entry<V>> iterator = entries.values().iterator();
+    for (int scanned = 0; scanned < MAX_EVICTION_SCAN && isExceeded() && iterator.hasNext(); scanned++) {
+      Entry<V> entry = iterator.next();
+      if (entry.future.isDone()) {
+        iterator.remove();
+        removed(entry);
+      }
+    }
+  }
+
+  private boolean isExceeded() {
+    return entries.size() > maximumSize
+        || weight.get() > maximumWeight
+        || (budget != null && budget.isExceeded());
+  }
+
+  private void weigh(Entry<V> entry, V value) {
+    long valueWeight = value == null ? 0 : weigher.applyAsLong(value);
+    // it may have been evicted or cleared already
+    if (entry.weight.compareAndSet(LOADING, valueWeight)) {
+      weight.addAndGet(valueWeight);
+    }
+  }
+
+  private void removed(Entry<V> entry) {
+    if (entry == null) {
+      return;
+    }
+
+    long entryWeight = entry.weight.getAndSet(REMOVED);
+    if (entryWeight > 0) {
+      weight.addAndGet(-entryWeight);
+    }
+
+    if (budget != null) {
+      budget.remove();
+    }
+  }
+
+  private static class Entry<V> {
+    private final CompletableFuture<V> future;
+    private final AtomicLong weight;
+
+    private Entry(CompletableFuture<V> future) {
+      this.future = future;
+      this.weight = new AtomicLong(LOADING);
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounds for each request's DataLoader cache, see {@link TypedBindingBuilder#withRequestCache}
+ */
+public class RequestCacheOptions {
+  private long maximumSize;
+  private long maximumWeight;
+  private ToLongFunction<Object> weigher;
+
+  public RequestCacheOptions() {
+    this.maximumSize = Long.MAX_VALUE;
+    this.maximumWeight = Long.MAX_VALUE;
+    this.weigher = null;
+  }
+
+  public static RequestCacheOptions newOptions() {
+    return new RequestCacheOptions();
+  }
+
+  public long maximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Once a request's cache holds this many entries, its least recently used completed entries are evicted
+   */
+  public RequestCacheOptions setMaximumSize(long maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive, got " + maximumSize);
+    }
+
+    this.maximumSize = maximumSize;
+    return this;
+  }
+
+  public long maximumWeight() {
+    return maximumWeight;
+  }
+
+  public ToLongFunction<Object> weigher() {
+    return weigher;
+  }
+
+  /**
+   * Once the loaded values in a request's cache weigh this much, for example an approximate size in bytes,
+   * its least recently used completed entries are evicted. Failed and null values weigh nothing
+   */
+  @SuppressWarnings("unchecked")
+  public <V> RequestCacheOptions setMaximumWeight(long maximumWeight, ToLongFunction<? super V> weigher) {
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException("Maximum weight must be positive, got " + maximumWeight);
+    }
+
+    this.maximumWeight = maximumWeight;
+    this.weigher = (ToLongFunction<Object>) Objects.requireNonNull(weigher);
+    return this;
+  }
+}
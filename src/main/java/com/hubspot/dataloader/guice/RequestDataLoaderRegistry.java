@@ -0,0 +1,118 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.dataloader.stats.Statistics;
+
+/**
+ * A DataLoaderRegistry backed by the request's bound DataLoaders. When lazy, a DataLoader is only
+ * created the first time it's used and dispatchAll skips any DataLoader that was never created.
+ * Each request gets its own registry, which can't be used once the request's DataLoaders are released
+ */
+public class RequestDataLoaderRegistry extends DataLoaderRegistry {
+  private final RequestDataLoaders dataLoaders;
+  private final Object owner;
+
+  RequestDataLoaderRegistry(RequestDataLoaders dataLoaders, boolean lazy) {
+    this.dataLoaders = dataLoaders;
+    this.owner = dataLoaders.getOwner();
+
+    if (!lazy) {
+      dataLoaders.createAll();
+    }
+  }
+
+  @Override
+  public DataLoaderRegistry register(String key, DataLoader<?, ?> dataLoader) {
+    dataLoaders().register(key, dataLoader);
+    return this;
+  }
+
+  @Override
+  public DataLoaderRegistry combine(DataLoaderRegistry registry) {
+    DataLoaderRegistry combined = new DataLoaderRegistry();
+    dataLoaders().getCreated().forEach(combined::register);
+
+    for (String key : registry.getKeys()) {
+      combined.register(key, registry.getDataLoader(key));
+    }
+
+    return combined;
+  }
+
+  /**
+   * @return the DataLoaders that have been used so far in this request
+   */
+  @Override
+  public List<DataLoader<?, ?>> getDataLoaders() {
+    return new ArrayList<>(dataLoaders().getCreated().values());
+  }
+
+  @Override
+  public DataLoaderRegistry unregister(String key) {
+    dataLoaders().unregister(key);
+    return this;
+  }
+
+  @Override
+  public <K, V> DataLoader<K, V> getDataLoader(String key) {
+    return dataLoaders().get(key);
+  }
+
+  /**
+   * @return the names of all bound DataLoaders, whether or not they've been created yet
+   */
+  @Override
+  public Set<String> getKeys() {
+    return dataLoaders().getNames();
+  }
+
+  @Override
+  public void dispatchAll() {
+    dataLoaders().dispatchAll();
+  }
+
+  /**
+   * Dispatch every DataLoader used so far in this request. With {@link DataLoaderModule#withParallelDispatch()}
+   * the DataLoaders are dispatched at the same time on the {@link DispatchExecutor}
+   *
+   * @return a future that completes once every dispatched batch has completed
+   */
+  public CompletableFuture<Void> dispatchAllAsync() {
+    return dataLoaders().dispatchAll();
+  }
+
+  /**
+   * Dispatch every DataLoader with keys queued, wait for the batches to complete, and repeat until loads chained
+   * off those batches stop queueing keys. Each round batches all of the keys queued by the previous one
+   *
+   * @return a future that completes with the number of rounds it took
+   */
+  public CompletableFuture<Integer> dispatchUntilQuiescent() {
+    return dataLoaders().dispatchUntilQuiescent();
+  }
+
+  @Override
+  public Statistics getStatistics() {
+    Statistics statistics = new Statistics();
+    for (DataLoader<?, ?> dataLoader : getDataLoaders()) {
+      statistics = statistics.combine(dataLoader.getStatistics());
+    }
+
+    return statistics;
+  }
+
+  private RequestDataLoaders dataLoaders() {
+    // pooled DataLoaders may belong to another request by now
+    if (dataLoaders.getOwner() != owner) {
+      throw new IllegalStateException("This request's DataLoaders have already been released");
+    }
+
+    return dataLoaders;
+  }
+}
@@ -0,0 +1,444 @@
+package com.hubspot.dataloader.guice;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+import org.dataloader.DataLoader;
+import org.dataloader.stats.Statistics;
+
+import com.google.inject.OutOfScopeException;
+import com.google.inject.Provider;
+import com.google.inject.servlet.ServletScopes;
+
+/**
+ * Holds the DataLoaders for a single request. Bound loaders are only created the first time
+ * they're requested, either through the registry or through one of the singleton wrappers.
+ * When pooled, it's reset once its request ends and handed to a later request along with its DataLoaders
+ */
+class RequestDataLoaders {
+  // the last request each thread resolved, so repeated loads don't need to go through the request scope
+  private static final ThreadLocal<CachedRequest> CURRENT = new ThreadLocal<>();
+  // the owner of released DataLoaders, which never matches a request
+  private static final Object RELEASED = new Object();
+
+  private final DataLoaderBindings bindings;
+  private final RequestDataLoadersPool pool;
+  private final AtomicReferenceArray<DataLoader<?, ?>> slots;
+  // the DataLoaders kept for later requests, only when pooled
+  private final PooledDataLoader<?, ?>[] pooled;
+  private final Map<String, DataLoader<?, ?>> registered;
+  // only counted when there's somewhere to report them
+  private final AtomicIntegerArray dispatchRounds;
+  private volatile DataLoaderMetrics metrics;
+  private final RequestCacheBudget cacheBudget;
+  // kept along with the DataLoaders that use them when pooled
+  private final Map<Class<?>, LoadGroup> loadGroups;
+  private volatile Object owner;
+  private volatile RequestDispatcher dispatcher;
+  // guarded by this, whether the current owner has released them
+  private boolean released;
+
+  RequestDataLoaders(
+      DataLoaderBindings bindings,
+      DispatchStrategy dispatchStrategy,
+      DataLoaderMetrics metrics,
+      RequestDataLoadersPool pool,
+      Object owner
+  ) {
+    this.bindings = bindings;
+    this.pool = pool;
+    this.slots = new AtomicReferenceArray<>(bindings.size());
+    this.pooled = pool.isPooling() ? new PooledDataLoader<?, ?>[bindings.size()] : null;
+    this.registered = new LinkedHashMap<>();
+    this.dispatchRounds = new AtomicIntegerArray(bindings.size());
+    this.metrics = metrics;
+    this.cacheBudget =
+        bindings.getRequestCacheBudget() > 0 ? new RequestCacheBudget(bindings.getRequestCacheBudget()) : null;
+    this.loadGroups = new HashMap<>();
+    this.owner = owner;
+    this.dispatcher = dispatchStrategy.newRequestDispatcher(new RequestDataLoaderRegistry(this, true));
+  }
+
+  /**
+   * Resolve the current request's DataLoaders, only going through the scope the first time each thread
+   * sees a request. The request is identified by its open DataLoaderContext or otherwise its servlet scope
+   * context which, unlike the request scoped objects themselves, can be looked up without any locking
+   */
+  static RequestDataLoaders current(Provider<RequestDataLoaders> scopedProvider) {
+    Object request = currentRequest();
+
+    RequestDataLoaders dataLoaders = null;
+    CachedRequest cached = CURRENT.get();
+    if (cached != null && cached.request.get() == request) {
+      dataLoaders = cached.dataLoaders.get();
+    }
+
+    if (dataLoaders == null) {
+      dataLoaders = scopedProvider.get();
+      CURRENT.set(new CachedRequest(request, dataLoaders));
+    }
+
+    if (dataLoaders.owner != request) {
+      throw new OutOfScopeException("This request's DataLoaders have already been released");
+    }
+
+    return dataLoaders;
+  }
+
+  /**
+   * @return the open DataLoaderContext, or otherwise the servlet scope context
+   */
+  static Object currentRequest() {
+    DataLoaderContext context = DataLoaderContext.current();
+    if (context == null) {
+      // throws OutOfScopeException if we're not in a request either
+      return ServletScopes.transferRequest();
+    }
+
+    if (context.isEnded()) {
+      throw new OutOfScopeException("This DataLoaderContext has ended");
+    }
+
+    return context;
+  }
+
+  /**
+   * @return the budget shared by this request's DataLoader caches, or null if there isn't one
+   */
+  RequestCacheBudget getCacheBudget() {
+    return cacheBudget;
+  }
+
+  Object getOwner() {
+    return owner;
+  }
+
+  /**
+   * @return whether these DataLoaders have been handed back to the pool, so nothing more should be created in them
+   */
+  boolean isReleased() {
+    return owner == RELEASED;
+  }
+
+  /**
+   * @return this request's group for the group batch loader, created the first time one of its DataLoaders is
+   */
+  synchronized LoadGroup getLoadGroup(Class<?> loaderClass, Function<RequestDataLoaders, LoadGroup> newLoadGroup) {
+    return loadGroups.computeIfAbsent(loaderClass, ignored -> newLoadGroup.apply(this));
+  }
+
+  /**
+   * Report this request's metrics and hand these DataLoaders back to the pool, if there is one. Only the first
+   * call does anything, whether it comes from the context ending or from a filter. When pooled they can't be
+   * used by this request afterwards
+   */
+  void release() {
+    synchronized (this) {
+      if (released) {
+        return;
+      }
+
+      released = true;
+    }
+
+    recordMetrics();
+    pool.release(this);
+  }
+
+  /**
+   * Forget everything the last request did, so no cached values, statistics or registrations can reach the next one
+   *
+   * @return false if any of the DataLoaders is still loading, or if it's already been released
+   */
+  synchronized boolean reset() {
+    if (owner == RELEASED) {
+      return false;
+    }
+
+    // from here on, anything the last request held onto fails rather than reaching the next request
+    owner = RELEASED;
+
+    for (PooledDataLoader<?, ?> dataLoader : pooled) {
+      if (dataLoader != null && !dataLoader.reset()) {
+        return false;
+      }
+    }
+
+    for (int i = 0; i < slots.length(); i++) {
+      slots.set(i, null);
+      dispatchRounds.set(i, 0);
+    }
+
+    registered.clear();
+    return true;
+  }
+
+  /**
+   * Take these reset DataLoaders for a new request, with that request's dispatch strategy and metrics
+   */
+  synchronized void reuse(Object owner, DispatchStrategy dispatchStrategy, DataLoaderMetrics metrics) {
+    this.metrics = metrics;
+    this.owner = owner;
+    this.released = false;
+    // a new dispatcher, since dispatchers can keep state about their request
+    this.dispatcher = dispatchStrategy.newRequestDispatcher(new RequestDataLoaderRegistry(this, true));
+  }
+
+  @SuppressWarnings("unchecked")
+  <K, V> DataLoader<K, V> get(int ordinal) {
+    DataLoader<?, ?> dataLoader = slots.get(ordinal);
+    if (dataLoader == null) {
+      dataLoader = create(ordinal);
+    }
+
+    return (DataLoader<K, V>) dataLoader;
+  }
+
+  /**
+   * @return the DataLoader if this request has created it, without creating it otherwise
+   */
+  DataLoader<?, ?> getIfCreated(int ordinal) {
+    return slots.get(ordinal);
+  }
+
+  @SuppressWarnings("unchecked")
+  synchronized <K, V> DataLoader<K, V> get(String name) {
+    int ordinal = bindings.getOrdinal(name);
+    if (ordinal < 0) {
+      return (DataLoader<K, V>) registered.get(name);
+    }
+
+    return get(ordinal);
+  }
+
+  synchronized void register(String name, DataLoader<?, ?> dataLoader) {
+    int ordinal = bindings.getOrdinal(name);
+    if (ordinal < 0) {
+      registered.put(name, dataLoader);
+    } else {
+      slots.set(ordinal, dataLoader);
+    }
+  }
+
+  synchronized void unregister(String name) {
+    int ordinal = bindings.getOrdinal(name);
+    if (ordinal < 0) {
+      registered.remove(name);
+    } else {
+      slots.set(ordinal, null);
+    }
+  }
+
+  /**
+   * Dispatch every DataLoader created so far that has keys queued, in parallel if there's a dispatch executor
+   *
+   * @return a future that completes once every dispatched batch has completed
+   */
+  CompletableFuture<Void> dispatchAll() {
+    countDispatchRounds();
+
+    List<DataLoader<?, ?>> pending = new ArrayList<>();
+    for (DataLoader<?, ?> dataLoader : getCreated().values()) {
+      if (dataLoader.dispatchDepth() > 0) {
+        pending.add(dataLoader);
+      }
+    }
+
+    Executor executor = bindings.getDispatchExecutor();
+    List<CompletableFuture<?>> batches = new ArrayList<>(pending.size());
+    if (executor == null || pending.size() == 1) {
+      // with a single DataLoader there's nothing to run alongside it, skip the hand off
+      for (DataLoader<?, ?> dataLoader : pending) {
+        batches.add(dataLoader.dispatch());
+      }
+    } else {
+      Executor contextExecutor = DataLoaderContext.currentExecutor(executor);
+      for (DataLoader<?, ?> dataLoader : pending) {
+        batches.add(CompletableFuture.supplyAsync(dataLoader::dispatch, contextExecutor).thenCompose(Function.identity()));
+      }
+    }
+
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]));
+  }
+
+  /**
+   * Keep dispatching until no DataLoader has keys queued, waiting for each round's batches to complete so
+   * that loads chained off them are batched together in the next round
+   *
+   * @return a future that completes with the number of rounds it took
+   */
+  CompletableFuture<Integer> dispatchUntilQuiescent() {
+    return dispatchRemaining(0);
+  }
+
+  private CompletableFuture<Integer> dispatchRemaining(int rounds) {
+    if (!hasQueuedKeys()) {
+      return CompletableFuture.completedFuture(rounds);
+    }
+
+    // a failed batch only fails its own keys, carry on with whatever it queued
+    return dispatchAll()
+        .handle((ignored, error) -> rounds + 1)
+        .thenCompose(this::dispatchRemaining);
+  }
+
+  private boolean hasQueuedKeys() {
+    for (DataLoader<?, ?> dataLoader : getCreated().values()) {
+      if (dataLoader.dispatchDepth() > 0) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Report how each DataLoader created in this request was used
+   */
+  private void recordMetrics() {
+    if (metrics == DataLoaderMetrics.none()) {
+      return;
+    }
+
+    for (int i = 0; i < slots.length(); i++) {
+      DataLoader<?, ?> dataLoader = slots.get(i);
+      if (dataLoader != null) {
+        Statistics statistics = dataLoader.getStatistics();
+        metrics.recordRequest(
+            bindings.getName(i),
+            statistics.getLoadCount(),
+            statistics.getCacheHitCount(),
+            dispatchRounds.get(i)
+        );
+      }
+    }
+  }
+
+  private void countDispatchRounds() {
+    if (metrics == DataLoaderMetrics.none()) {
+      return;
+    }
+
+    for (int i = 0; i < slots.length(); i++) {
+      DataLoader<?, ?> dataLoader = slots.get(i);
+      if (dataLoader != null && dataLoader.dispatchDepth() > 0) {
+        dispatchRounds.incrementAndGet(i);
+      }
+    }
+  }
+
+  synchronized void createAll() {
+    for (int i = 0; i < slots.length(); i++) {
+      get(i);
+    }
+  }
+
+  /**
+   * @return the DataLoaders that have been created or registered so far in this request
+   */
+  synchronized Map<String, DataLoader<?, ?>> getCreated() {
+    Map<String, DataLoader<?, ?>> created = new LinkedHashMap<>();
+    for (int i = 0; i < slots.length(); i++) {
+      DataLoader<?, ?> dataLoader = slots.get(i);
+      if (dataLoader != null) {
+        created.put(bindings.getName(i), dataLoader);
+      }
+    }
+
+    created.putAll(registered);
+    return created;
+  }
+
+  synchronized Set<String> getNames() {
+    Set<String> names = new LinkedHashSet<>();
+    for (int i = 0; i < bindings.size(); i++) {
+      names.add(bindings.getName(i));
+    }
+
+    names.addAll(registered.keySet());
+    return names;
+  }
+
+  private synchronized DataLoader<?, ?> create(int ordinal) {
+    DataLoader<?, ?> dataLoader = slots.get(ordinal);
+    if (dataLoader == null) {
+      if (pooled == null) {
+        dataLoader = bindings.create(ordinal, this);
+      } else {
+        if (pooled[ordinal] == null) {
+          pooled[ordinal] = new PooledDataLoader<>(bindings.create(ordinal, this));
+        }
+
+        dataLoader = owned(pooled[ordinal]);
+      }
+
+      // wrapped for each request, since only some requests' strategies use a dispatcher
+      RequestDispatcher requestDispatcher = dispatcher;
+      if (requestDispatcher != null) {
+        dataLoader = new DispatchingDataLoader<>(dataLoader, requestDispatcher);
+      }
+
+      slots.set(ordinal, dataLoader);
+    }
+
+    return dataLoader;
+  }
+
+  /**
+   * A pooled DataLoader is handed out through a delegate bound to the current request, so a reference kept
+   * past the request fails rather than reaching whichever request has the DataLoader next
+   */
+  private DataLoader<?, ?> owned(DataLoader<?, ?> dataLoader) {
+    Object requestOwner = owner;
+    return new OwnedDataLoader<>(() -> {
+      if (owner != requestOwner) {
+        throw new IllegalStateException("This request's DataLoaders have already been released");
+      }
+
+      return dataLoader;
+    });
+  }
+
+  private static class OwnedDataLoader<K, V> extends DataLoaderWrapper<K, V> implements LongKeyed<V> {
+    private final Provider<DataLoader<?, ?>> delegateProvider;
+
+    private OwnedDataLoader(Provider<DataLoader<?, ?>> delegateProvider) {
+      super(delegateProvider);
+      this.delegateProvider = delegateProvider;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<V> load(long key) {
+      return LongKeyed.load((DataLoader<?, V>) delegateProvider.get(), key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<V>> loadMany(long[] keys) {
+      return LongKeyed.loadMany((DataLoader<?, V>) delegateProvider.get(), keys);
+    }
+  }
+
+  private static class CachedRequest {
+    // weak so an idle thread doesn't keep a finished request's DataLoaders reachable
+    private final WeakReference<Object> request;
+    private final WeakReference<RequestDataLoaders> dataLoaders;
+
+    private CachedRequest(Object request, RequestDataLoaders dataLoaders) {
+      this.request = new WeakReference<>(request);
+      this.dataLoaders = new WeakReference<>(dataLoaders);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.MapMaker;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+
+/**
+ * Provides each request's DataLoaders. With {@link DataLoaderModule#withPooling} they're reset when the request
+ * is released and kept for a later request, instead of creating every DataLoader again
+ */
+@Singleton
+class RequestDataLoadersPool implements Provider<RequestDataLoaders> {
+  private final DataLoaderBindings bindings;
+  // looked up for each request, since either may be bound to a request scoped provider
+  private final Provider<DispatchStrategy> dispatchStrategy;
+  private final Provider<DataLoaderMetrics> metrics;
+  private final Queue<RequestDataLoaders> idle;
+  private final AtomicInteger idleCount;
+  // each request's DataLoaders until they're released, weak in case a request never releases them
+  private final Map<Object, RequestDataLoaders> active;
+  private int maxIdle;
+
+  @Inject
+  RequestDataLoadersPool(
+      DataLoaderBindings bindings,
+      Provider<DispatchStrategy> dispatchStrategy,
+      Provider<DataLoaderMetrics> metrics
+  ) {
+    this.bindings = bindings;
+    this.dispatchStrategy = dispatchStrategy;
+    this.metrics = metrics;
+    this.idle = new ConcurrentLinkedQueue<>();
+    this.idleCount = new AtomicInteger();
+    this.active = new MapMaker().weakKeys().makeMap();
+  }
+
+  @Inject(optional = true)
+  void setMaxIdle(@DataLoaderPoolSize Integer maxIdle) {
+    this.maxIdle = maxIdle;
+  }
+
+  boolean isPooling() {
+    return maxIdle > 0;
+  }
+
+  @Override
+  public RequestDataLoaders get() {
+    Object request = RequestDataLoaders.currentRequest();
+
+    RequestDataLoaders dataLoaders = idle.poll();
+    if (dataLoaders == null) {
+      dataLoaders = new RequestDataLoaders(bindings, dispatchStrategy.get(), metrics.get(), this, request);
+    } else {
+      idleCount.decrementAndGet();
+      dataLoaders.reuse(request, dispatchStrategy.get(), metrics.get());
+    }
+
+    active.put(request, dataLoaders);
+    return dataLoaders;
+  }
+
+  /**
+   * @return the current request's DataLoaders if it has created them and not released them yet, otherwise null
+   */
+  RequestDataLoaders getIfCreated() {
+    return active.get(RequestDataLoaders.currentRequest());
+  }
+
+  /**
+   * Keep the request's DataLoaders for a later request, unless they're still loading or the pool is full
+   */
+  void release(RequestDataLoaders dataLoaders) {
+    active.remove(dataLoaders.getOwner(), dataLoaders);
+    if (!isPooling() || !dataLoaders.reset()) {
+      return;
+    }
+
+    if (idleCount.incrementAndGet() > maxIdle) {
+      idleCount.decrementAndGet();
+      return;
+    }
+
+    idle.offer(dataLoaders);
+  }
+
+  int getIdleCount() {
+    return idleCount.get();
+  }
+}
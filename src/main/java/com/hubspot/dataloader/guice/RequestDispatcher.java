@@ -0,0 +1,18 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tracks the loads for a single request, see {@link DispatchStrategy}
+ */
+public interface RequestDispatcher {
+
+  /**
+   * Called after each load or loadMany on one of the request's DataLoaders
+   *
+   * @param queuedKeys the number of new keys that were queued by this load
+   * @param future the future returned by the DataLoader
+   * @return the future to return to the caller
+   */
+  <V> CompletableFuture<V> loaded(int queuedKeys, CompletableFuture<V> future);
+}
@@ -0,0 +1,257 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.Try;
+import org.dataloader.stats.Statistics;
+import org.dataloader.stats.StatisticsCollector;
+
+/**
+ * Each request's long keyed DataLoader, keeps its cache in a LongMap and its queued keys in a long[].
+ * Follows DataLoader's semantics for batching, caching, max batch size and failed values
+ */
+class RequestLongDataLoader<V> extends LongDataLoader<V> {
+  private final LongBatchLoader<V> batchLoader;
+  private final boolean batchingEnabled;
+  private final boolean cachingEnabled;
+  private final int maxBatchSize;
+  private final StatisticsCollector statistics;
+
+  // all guarded by this
+  private final LongMap<CompletableFuture<V>> cache;
+  private long[] queuedKeys;
+  private List<CompletableFuture<V>> queuedFutures;
+
+  RequestLongDataLoader(LongBatchLoader<V> batchLoader, DataLoaderOptions options) {
+    if (options.cacheKeyFunction().isPresent()) {
+      throw new IllegalArgumentException("Long keyed DataLoaders can't use a cache key function");
+    }
+
+    this.batchLoader = batchLoader;
+    this.batchingEnabled = options.batchingEnabled();
+    this.cachingEnabled = options.cachingEnabled();
+    this.maxBatchSize = options.maxBatchSize();
+    this.statistics = options.getStatisticsCollector();
+    this.cache = new LongMap<>();
+    this.queuedKeys = new long[16];
+    this.queuedFutures = new ArrayList<>();
+  }
+
+  @Override
+  public CompletableFuture<V> load(long key) {
+    CompletableFuture<V> future;
+    synchronized (this) {
+      statistics.incrementLoadCount();
+      if (cachingEnabled) {
+        CompletableFuture<V> cached = cache.get(key);
+        if (cached != null) {
+          statistics.incrementCacheHitCount();
+          return cached;
+        }
+      }
+
+      future = new CompletableFuture<>();
+      if (cachingEnabled) {
+        cache.put(key, future);
+      }
+
+      if (batchingEnabled) {
+        queue(key, future);
+        return future;
+      }
+    }
+
+    loadBatch(new long[] { key }, Collections.singletonList(future));
+    return future;
+  }
+
+  @Override
+  public CompletableFuture<List<V>> loadMany(long[] keys) {
+    List<CompletableFuture<V>> futures = new ArrayList<>(keys.length);
+    for (long key : keys) {
+      futures.add(load(key));
+    }
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> join(futures));
+  }
+
+  @Override
+  public CompletableFuture<List<V>> dispatch() {
+    long[] keys;
+    List<CompletableFuture<V>> futures;
+    synchronized (this) {
+      if (queuedFutures.isEmpty()) {
+        return CompletableFuture.completedFuture(Collections.emptyList());
+      }
+
+      keys = Arrays.copyOf(queuedKeys, queuedFutures.size());
+      futures = queuedFutures;
+      queuedFutures = new ArrayList<>();
+    }
+
+    if (maxBatchSize <= 0 || keys.length <= maxBatchSize) {
+      return loadBatch(keys, futures);
+    }
+
+    List<CompletableFuture<List<V>>> batches = new ArrayList<>();
+    for (int from = 0; from < keys.length; from += maxBatchSize) {
+      int to = Math.min(keys.length, from + maxBatchSize);
+      batches.add(loadBatch(Arrays.copyOfRange(keys, from, to), futures.subList(from, to)));
+    }
+
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      List<V> values = new ArrayList<>(keys.length);
+      batches.forEach(batch -> values.addAll(batch.join()));
+      return values;
+    });
+  }
+
+  @Override
+  public List<V> dispatchAndJoin() {
+    List<V> values = new ArrayList<>(dispatch().join());
+    while (dispatchDepth() > 0) {
+      values.addAll(dispatch().join());
+    }
+
+    return values;
+  }
+
+  @Override
+  public synchronized int dispatchDepth() {
+    return queuedFutures.size();
+  }
+
+  @Override
+  public synchronized DataLoader<Long, V> clear(Long key) {
+    cache.remove(key);
+    return this;
+  }
+
+  @Override
+  public synchronized DataLoader<Long, V> clearAll() {
+    cache.clear();
+    return this;
+  }
+
+  @Override
+  public synchronized DataLoader<Long, V> prime(Long key, V value) {
+    if (cache.get(key) == null) {
+      cache.put(key, CompletableFuture.completedFuture(value));
+    }
+
+    return this;
+  }
+
+  @Override
+  public synchronized DataLoader<Long, V> prime(Long key, Exception error) {
+    if (cache.get(key) == null) {
+      CompletableFuture<V> future = new CompletableFuture<>();
+      future.completeExceptionally(error);
+      cache.put(key, future);
+    }
+
+    return this;
+  }
+
+  @Override
+  public Object getCacheKey(Long key) {
+    return key;
+  }
+
+  @Override
+  public Statistics getStatistics() {
+    return statistics.getStatistics();
+  }
+
+  private void queue(long key, CompletableFuture<V> future) {
+    int queued = queuedFutures.size();
+    if (queued == queuedKeys.length) {
+      queuedKeys = Arrays.copyOf(queuedKeys, queued * 2);
+    }
+
+    queuedKeys[queued] = key;
+    queuedFutures.add(future);
+  }
+
+  private CompletableFuture<List<V>> loadBatch(long[] keys, List<CompletableFuture<V>> futures) {
+    statistics.incrementBatchLoadCountBy(keys.length);
+
+    CompletionStage<List<V>> values;
+    try {
+      values = batchLoader.load(keys);
+    } catch (RuntimeException e) {
+      CompletableFuture<List<V>> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      values = failed;
+    }
+
+    return values.toCompletableFuture().handle((loaded, error) -> {
+      if (error == null && loaded.size() != keys.length) {
+        error = new IllegalStateException(
+            "Batch loader returned " + loaded.size() + " values for " + keys.length + " keys"
+        );
+      }
+
+      if (error != null) {
+        statistics.incrementBatchLoadExceptionCount();
+        for (int i = 0; i < keys.length; i++) {
+          fail(keys[i], futures.get(i), error);
+        }
+
+        throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+      }
+
+      for (int i = 0; i < keys.length; i++) {
+        complete(keys[i], futures.get(i), loaded.get(i));
+      }
+
+      return loaded;
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private void complete(long key, CompletableFuture<V> future, Object value) {
+    if (value instanceof Try) {
+      Try<V> result = (Try<V>) value;
+      if (result.isFailure()) {
+        statistics.incrementLoadErrorCount();
+        fail(key, future, result.getThrowable());
+      } else {
+        future.complete(result.get());
+      }
+    } else if (value instanceof Throwable) {
+      statistics.incrementLoadErrorCount();
+      fail(key, future, (Throwable) value);
+    } else {
+      future.complete((V) value);
+    }
+  }
+
+  private void fail(long key, CompletableFuture<V> future, Throwable error) {
+    // like DataLoader, don't cache failures so the key can be retried
+    synchronized (this) {
+      if (cache.get(key) == future) {
+        cache.remove(key);
+      }
+    }
+
+    future.completeExceptionally(error);
+  }
+
+  private static <V> List<V> join(List<CompletableFuture<V>> futures) {
+    List<V> values = new ArrayList<>(futures.size());
+    for (CompletableFuture<V> future : futures) {
+      values.add(future.join());
+    }
+
+    return values;
+  }
+}
@@ -0,0 +1,160 @@
+package com.hubspot.dataloader.guice;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Options for the cache that a binding shares across requests, see {@link TypedBindingBuilder#withSharedCache}
+ */
+public class SharedCacheOptions {
+  private long maximumSize;
+  private Duration expireAfterWrite;
+  private Duration refreshAfterWrite;
+  private long negativeMaximumSize;
+  private Duration negativeExpireAfterWrite;
+  private Predicate<? super Throwable> cacheableErrors;
+  private long offHeapMaximumBytes;
+  private ValueCodec<?> codec;
+
+  public SharedCacheOptions() {
+    this.maximumSize = 10_000;
+    this.expireAfterWrite = Duration.ofMinutes(1);
+    this.refreshAfterWrite = null;
+    this.negativeMaximumSize = 1_000;
+    this.negativeExpireAfterWrite = null;
+    this.cacheableErrors = error -> false;
+    this.offHeapMaximumBytes = 0;
+    this.codec = null;
+  }
+
+  public static SharedCacheOptions newOptions() {
+    return new SharedCacheOptions();
+  }
+
+  public long maximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Once the cache holds this many entries, the least recently used entries are evicted
+   */
+  public SharedCacheOptions setMaximumSize(long maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive, got " + maximumSize);
+    }
+
+    this.maximumSize = maximumSize;
+    return this;
+  }
+
+  public Duration expireAfterWrite() {
+    return expireAfterWrite;
+  }
+
+  /**
+   * Entries are no longer returned once they're this old. With {@link #setRefreshAfterWrite}, this is how stale
+   * a value can get when refreshes keep failing or the key stops being loaded
+   */
+  public SharedCacheOptions setExpireAfterWrite(Duration expireAfterWrite) {
+    this.expireAfterWrite = Objects.requireNonNull(expireAfterWrite);
+    return this;
+  }
+
+  /**
+   * @return how old entries get before they're refreshed, or null if they aren't
+   */
+  public Duration refreshAfterWrite() {
+    return refreshAfterWrite;
+  }
+
+  /**
+   * Entries this old are still returned, but the first load to see one queues a background refresh. Refreshes
+   * queued within a few milliseconds of each other are batched through the binding's batch loader, outside of any
+   * request. Must be shorter than {@link #setExpireAfterWrite}
+   */
+  public SharedCacheOptions setRefreshAfterWrite(Duration refreshAfterWrite) {
+    if (refreshAfterWrite.isNegative() || refreshAfterWrite.isZero()) {
+      throw new IllegalArgumentException("Refresh interval must be positive, got " + refreshAfterWrite);
+    }
+
+    this.refreshAfterWrite = refreshAfterWrite;
+    return this;
+  }
+
+  public long negativeMaximumSize() {
+    return negativeMaximumSize;
+  }
+
+  /**
+   * Once the cache holds this many missing keys and errors, the least recently used are evicted. Separate
+   * from the maximum size, so misses can't push out loaded values
+   */
+  public SharedCacheOptions setNegativeMaximumSize(long negativeMaximumSize) {
+    if (negativeMaximumSize <= 0) {
+      throw new IllegalArgumentException("Negative maximum size must be positive, got " + negativeMaximumSize);
+    }
+
+    this.negativeMaximumSize = negativeMaximumSize;
+    return this;
+  }
+
+  /**
+   * @return how long missing keys and cacheable errors are cached for, or null if they aren't
+   */
+  public Duration negativeExpireAfterWrite() {
+    return negativeExpireAfterWrite;
+  }
+
+  /**
+   * Cache keys the batch loader returned null for, and errors matching {@link #setCacheableErrors}, for this long.
+   * Usually much shorter than {@link #setExpireAfterWrite}, so a key that's created soon shows up
+   */
+  public SharedCacheOptions setNegativeExpireAfterWrite(Duration negativeExpireAfterWrite) {
+    this.negativeExpireAfterWrite = Objects.requireNonNull(negativeExpireAfterWrite);
+    return this;
+  }
+
+  public Predicate<? super Throwable> cacheableErrors() {
+    return cacheableErrors;
+  }
+
+  /**
+   * Which errors the batch loader returns for individual keys can be cached with the missing keys, none by default.
+   * A failed batch is never cached
+   */
+  public SharedCacheOptions setCacheableErrors(Predicate<? super Throwable> cacheableErrors) {
+    this.cacheableErrors = Objects.requireNonNull(cacheableErrors);
+    return this;
+  }
+
+  /**
+   * @return the most bytes the off heap tier holds, or 0 if there isn't one
+   */
+  public long offHeapMaximumBytes() {
+    return offHeapMaximumBytes;
+  }
+
+  public ValueCodec<?> codec() {
+    return codec;
+  }
+
+  /**
+   * Keep entries evicted by the maximum size off heap, encoded with the codec, until they add up to this many bytes.
+   * An entry found off heap is decoded and moved back on heap. Lets the cache hold many more entries without
+   * adding to garbage collection, at the cost of encoding evicted entries and decoding hits. The tier allocates
+   * up to this many bytes of native memory as it fills up and keeps it, storing values in 1KB blocks, so it needs at
+   * least 1KB
+   */
+  public SharedCacheOptions setOffHeapTier(long maximumBytes, ValueCodec<?> codec) {
+    if (maximumBytes < OffHeapCache.BLOCK_BYTES) {
+      throw new IllegalArgumentException(
+          "Off heap maximum bytes must be at least " + OffHeapCache.BLOCK_BYTES + ", got " + maximumBytes
+      );
+    }
+
+    this.offHeapMaximumBytes = maximumBytes;
+    this.codec = Objects.requireNonNull(codec);
+    return this;
+  }
+}
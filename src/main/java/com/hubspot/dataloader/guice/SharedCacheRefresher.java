@@ -0,0 +1,125 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dataloader.BatchLoader;
+
+/**
+ * Reloads a shared cache's stale entries in the background. Keys that go stale within a window are
+ * refreshed together in one call to the binding's batch loader, and a key is only refreshed once at a time.
+ * Until a refresh completes the stale value keeps being served, and a failed refresh leaves it in place.
+ * The scheduler only waits out the window, the refresh itself starts on the given executor. A refresh isn't part of
+ * any request, so it runs without a {@link DataLoaderContext}
+ */
+class SharedCacheRefresher<K, V> {
+  private static final long WINDOW_MILLIS = 10;
+
+  private final SharedDataLoaderCache<K, V> cache;
+  private final BatchLoader<K, V> batchLoader;
+  private final ScheduledExecutorService scheduler;
+  private final Executor executor;
+  // cache keys that are waiting for the window or refreshing
+  private final Set<Object> refreshing;
+  // guarded by this, cache key to DataLoader key
+  private Map<Object, K> pending;
+  private final AtomicLong refreshCount;
+  private final AtomicLong failureCount;
+
+  SharedCacheRefresher(
+      SharedDataLoaderCache<K, V> cache,
+      BatchLoader<K, V> batchLoader,
+      ScheduledExecutorService scheduler,
+      Executor executor
+  ) {
+    this.cache = cache;
+    this.batchLoader = batchLoader;
+    this.scheduler = scheduler;
+    this.executor = executor;
+    this.refreshing = ConcurrentHashMap.newKeySet();
+    this.pending = new LinkedHashMap<>();
+    this.refreshCount = new AtomicLong();
+    this.failureCount = new AtomicLong();
+  }
+
+  void refresh(Object cacheKey, K key) {
+    if (!refreshing.add(cacheKey)) {
+      return;
+    }
+
+    synchronized (this) {
+      if (pending.isEmpty()) {
+        scheduler.schedule(this::startPending, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+      }
+
+      pending.put(cacheKey, key);
+    }
+  }
+
+  long getRefreshCount() {
+    return refreshCount.get();
+  }
+
+  long getFailureCount() {
+    return failureCount.get();
+  }
+
+  private void startPending() {
+    Map<Object, K> keys;
+    synchronized (this) {
+      keys = pending;
+      pending = new LinkedHashMap<>();
+    }
+
+    List<Object> cacheKeys = new ArrayList<>(keys.keySet());
+    List<K> loadKeys = new ArrayList<>(keys.values());
+    try {
+      executor.execute(() -> refresh(cacheKeys, loadKeys));
+    } catch (RejectedExecutionException e) {
+      complete(cacheKeys, loadKeys, null);
+    }
+  }
+
+  private void refresh(List<Object> cacheKeys, List<K> loadKeys) {
+    CompletionStage<List<V>> values;
+    try {
+      values = batchLoader.load(loadKeys);
+    } catch (RuntimeException e) {
+      complete(cacheKeys, loadKeys, null);
+      return;
+    } catch (Error e) {
+      // the keys can still be refreshed later
+      complete(cacheKeys, loadKeys, null);
+      throw e;
+    }
+
+    values.whenComplete((loaded, error) -> complete(cacheKeys, loadKeys, error == null ? loaded : null));
+  }
+
+  private void complete(List<Object> cacheKeys, List<K> keys, List<V> values) {
+    try {
+      if (values == null || values.size() != keys.size()) {
+        failureCount.addAndGet(keys.size());
+        return;
+      }
+
+      for (int i = 0; i < keys.size(); i++) {
+        cache.populate(cacheKeys.get(i), keys.get(i), values.get(i));
+      }
+
+      refreshCount.addAndGet(keys.size());
+    } finally {
+      refreshing.removeAll(cacheKeys);
+    }
+  }
+}
@@ -0,0 +1,338 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.Try;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.hubspot.dataloader.guice.OffHeapCache.Stored;
+
+/**
+ * A bounded cache shared by every request's DataLoader for a binding. Request scoped DataLoaders
+ * check it before queueing a key, so the batch loader only sees keys that missed.
+ *
+ * Entries are stored by cache key, which is the DataLoader key unless the binding's options set a cache key function.
+ * A singleton instance is bound for each binding that uses a shared cache, annotated with the DataLoader's name.
+ *
+ * Missing keys and cacheable errors are kept in a separate negative cache with its own size and expiry, if enabled.
+ * With a refresh interval, entries older than it are still served but reloaded in the background.
+ * With an off heap tier, entries evicted for size are encoded and kept off heap until they're read again.
+ */
+public class SharedDataLoaderCache<K, V> {
+  // stands in for a key the batch loader returned null for
+  private static final Object MISSING = new Object();
+
+  private final Cache<Object, Entry<K, V>> cache;
+  private final long expireNanos;
+  private final OffHeapCache<K, V> offHeapCache;
+  private final Cache<Object, Object> negativeCache;
+  private final Predicate<? super Throwable> cacheableErrors;
+  private final long refreshNanos;
+  private final SharedCacheRefresher<K, V> refresher;
+
+  /**
+   * @param refreshLoader the binding's batch loader, only used if the options set a refresh interval
+   * @param scheduler waits out each refresh window, see {@link DataLoaderScheduler}
+   * @param refreshExecutor where refreshes start once their window closes
+   */
+  @SuppressWarnings("unchecked")
+  SharedDataLoaderCache(
+      SharedCacheOptions options,
+      BatchLoader<K, V> refreshLoader,
+      ScheduledExecutorService scheduler,
+      Executor refreshExecutor
+  ) {
+    this.expireNanos = options.expireAfterWrite().toNanos();
+
+    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+        .maximumSize(options.maximumSize())
+        .expireAfterWrite(expireNanos, TimeUnit.NANOSECONDS)
+        .recordStats();
+
+    if (options.offHeapMaximumBytes() <= 0) {
+      this.offHeapCache = null;
+      this.cache = cacheBuilder.build();
+    } else {
+      OffHeapCache<K, V> offHeapCache =
+          new OffHeapCache<>(options.offHeapMaximumBytes(), expireNanos, (ValueCodec<V>) options.codec());
+      this.offHeapCache = offHeapCache;
+      // called on the thread whose write evicted the entry
+      this.cache = cacheBuilder.<Object, Entry<K, V>>removalListener(removal -> {
+        if (removal.getCause() == RemovalCause.SIZE) {
+          Entry<K, V> entry = removal.getValue();
+          offHeapCache.put(removal.getKey(), entry.key, entry.value, entry.writtenNanos);
+        }
+      }).build();
+    }
+
+    if (options.negativeExpireAfterWrite() == null) {
+      this.negativeCache = null;
+    } else {
+      this.negativeCache = CacheBuilder.newBuilder()
+          .maximumSize(options.negativeMaximumSize())
+          .expireAfterWrite(options.negativeExpireAfterWrite().toNanos(), TimeUnit.NANOSECONDS)
+          .recordStats()
+          .build();
+    }
+
+    this.cacheableErrors = options.cacheableErrors();
+
+    if (options.refreshAfterWrite() == null) {
+      this.refreshNanos = 0;
+      this.refresher = null;
+    } else {
+      if (options.refreshAfterWrite().compareTo(options.expireAfterWrite()) >= 0) {
+        throw new IllegalArgumentException(
+            "Refresh interval " + options.refreshAfterWrite() + " must be shorter than the expiry " + options.expireAfterWrite()
+        );
+      }
+
+      this.refreshNanos = options.refreshAfterWrite().toNanos();
+      this.refresher = new SharedCacheRefresher<>(this, refreshLoader, scheduler, refreshExecutor);
+    }
+  }
+
+  public V getIfPresent(Object cacheKey) {
+    Entry<K, V> entry = getEntry(cacheKey);
+    return entry == null ? null : entry.value;
+  }
+
+  /**
+   * Like {@link #getIfPresent}, but queues a refresh if the entry is stale
+   */
+  V getAndRefresh(Object cacheKey) {
+    Entry<K, V> entry = getEntry(cacheKey);
+    if (entry == null) {
+      return null;
+    }
+
+    // entries put without a DataLoader key can't be reloaded, they just expire
+    if (refresher != null && entry.key != null && System.nanoTime() - entry.writtenNanos > refreshNanos) {
+      refresher.refresh(cacheKey, entry.key);
+    }
+
+    return entry.value;
+  }
+
+  private Entry<K, V> getEntry(Object cacheKey) {
+    Entry<K, V> entry = cache.getIfPresent(cacheKey);
+    if (entry == null && offHeapCache != null) {
+      entry = promote(cacheKey);
+    }
+
+    // entries moved back on heap keep their original write time
+    if (entry != null && System.nanoTime() - entry.writtenNanos > expireNanos) {
+      cache.asMap().remove(cacheKey, entry);
+      return null;
+    }
+
+    return entry;
+  }
+
+  /**
+   * Move the entry back on heap if it's off heap
+   */
+  private Entry<K, V> promote(Object cacheKey) {
+    Stored<K> stored = offHeapCache.remove(cacheKey);
+    if (stored == null) {
+      return null;
+    }
+
+    V value = offHeapCache.decode(stored);
+    if (value == null) {
+      return null;
+    }
+
+    // a put since we looked on heap wins
+    Entry<K, V> entry = new Entry<>(stored.key, value, stored.writtenNanos);
+    Entry<K, V> existing = cache.asMap().putIfAbsent(cacheKey, entry);
+    return existing == null ? entry : existing;
+  }
+
+  public void put(Object cacheKey, V value) {
+    put(cacheKey, null, value);
+  }
+
+  private void put(Object cacheKey, K key, V value) {
+    cache.put(cacheKey, new Entry<>(key, value, System.nanoTime()));
+    if (offHeapCache != null) {
+      offHeapCache.invalidate(cacheKey);
+    }
+
+    if (negativeCache != null) {
+      negativeCache.invalidate(cacheKey);
+    }
+  }
+
+  /**
+   * Cache a value returned by the batch loader for the key, which may be wrapped in a Try. A missing key
+   * replaces any value cached for it, while an error leaves a stale value in place
+   */
+  @SuppressWarnings("unchecked")
+  void populate(Object cacheKey, K key, Object value) {
+    if (value instanceof Try) {
+      Try<V> result = (Try<V>) value;
+      value = result.isSuccess() ? result.get() : result.getThrowable();
+    }
+
+    if (value == null) {
+      cache.invalidate(cacheKey);
+      if (offHeapCache != null) {
+        offHeapCache.invalidate(cacheKey);
+      }
+
+      putMissing(cacheKey);
+    } else if (value instanceof Throwable) {
+      putError(cacheKey, (Throwable) value);
+    } else {
+      put(cacheKey, key, (V) value);
+    }
+  }
+
+  /**
+   * Look the key up in the negative cache
+   *
+   * @return a missing key's marker, a Throwable, or null if the key isn't negatively cached
+   */
+  Object getNegativeIfPresent(Object cacheKey) {
+    return negativeCache == null ? null : negativeCache.getIfPresent(cacheKey);
+  }
+
+  /**
+   * @return true if the negative cache entry is for a missing key, rather than an error
+   */
+  static boolean isMissing(Object negative) {
+    return negative == MISSING;
+  }
+
+  /**
+   * Remember that the key doesn't exist, if negative caching is enabled
+   */
+  public void putMissing(Object cacheKey) {
+    if (negativeCache != null) {
+      negativeCache.put(cacheKey, MISSING);
+    }
+  }
+
+  /**
+   * Remember the key's error, if negative caching is enabled and the error is cacheable
+   *
+   * @return true if the error was cached
+   */
+  public boolean putError(Object cacheKey, Throwable error) {
+    if (negativeCache == null || !cacheableErrors.test(error)) {
+      return false;
+    }
+
+    negativeCache.put(cacheKey, error);
+    return true;
+  }
+
+  public void invalidate(Object cacheKey) {
+    cache.invalidate(cacheKey);
+    if (offHeapCache != null) {
+      offHeapCache.invalidate(cacheKey);
+    }
+
+    if (negativeCache != null) {
+      negativeCache.invalidate(cacheKey);
+    }
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+    if (offHeapCache != null) {
+      offHeapCache.invalidateAll();
+    }
+
+    if (negativeCache != null) {
+      negativeCache.invalidateAll();
+    }
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  public double getHitRatio() {
+    return cache.stats().hitRate();
+  }
+
+  public long getEvictionCount() {
+    return cache.stats().evictionCount();
+  }
+
+  public long negativeSize() {
+    return negativeCache == null ? 0 : negativeCache.size();
+  }
+
+  public long getNegativeHitCount() {
+    return negativeCache == null ? 0 : negativeCache.stats().hitCount();
+  }
+
+  public long offHeapSize() {
+    return offHeapCache == null ? 0 : offHeapCache.size();
+  }
+
+  /**
+   * @return the size of the blocks holding values off heap, in bytes
+   */
+  public long offHeapBytes() {
+    return offHeapCache == null ? 0 : offHeapCache.bytes();
+  }
+
+  /**
+   * @return how many lookups missed on heap but were found off heap, which {@link #getHitCount} doesn't include
+   */
+  public long getOffHeapHitCount() {
+    return offHeapCache == null ? 0 : offHeapCache.getHitCount();
+  }
+
+  /**
+   * @return how many values couldn't be encoded or decoded, which are dropped from the cache
+   */
+  public long getCodecErrorCount() {
+    return offHeapCache == null ? 0 : offHeapCache.getCodecErrorCount();
+  }
+
+  /**
+   * @return how many stale entries have been reloaded in the background
+   */
+  public long getRefreshCount() {
+    return refresher == null ? 0 : refresher.getRefreshCount();
+  }
+
+  /**
+   * @return how many stale entries couldn't be reloaded because their refresh batch failed
+   */
+  public long getRefreshFailureCount() {
+    return refresher == null ? 0 : refresher.getFailureCount();
+  }
+
+  private static class Entry<K, V> {
+    // the key to reload the entry with
+    private final K key;
+    private final V value;
+    private final long writtenNanos;
+
+    private Entry(K key, V value, long writtenNanos) {
+      this.key = key;
+      this.value = value;
+      this.writtenNanos = writtenNanos;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A batch loader that reports each key's result as soon as it has it, rather than all at once,
+ * see {@link TypedBindingBuilder#toStreamingBatchLoader}
+ */
+@FunctionalInterface
+public interface StreamingBatchLoader<K, V> {
+
+  /**
+   * Load the keys, passing each one's value or error to the results as it arrives. Keys that weren't reported
+   * once the returned stage completes load as null, or fail with its error if it fails
+   */
+  CompletionStage<Void> load(List<K> keys, BatchResults<K, V> results);
+}
@@ -0,0 +1,154 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.dataloader.BatchLoader;
+import org.dataloader.CacheKey;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+
+/**
+ * The request scoped DataLoader for a streaming binding. The DataLoader itself only sees each batch once the
+ * loader is done with it, so loads are handed a future that the loader completes as soon as it reports the key
+ */
+class StreamingDataLoader<K, V> extends DataLoader<K, V> {
+  // the futures for keys that are queued or loading by cache key, shared with this request's batch loader
+  private final ConcurrentMap<Object, CompletableFuture<V>> streamed;
+
+  private StreamingDataLoader(
+      BatchLoader<K, V> batchLoader,
+      DataLoaderOptions options,
+      ConcurrentMap<Object, CompletableFuture<V>> streamed
+  ) {
+    super(batchLoader, options);
+    this.streamed = streamed;
+  }
+
+  /**
+   * @param wrapper applied to the adapted loader, for the binding's metrics, executor, limits and priming
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> StreamingDataLoader<K, V> create(
+      StreamingBatchLoader<K, V> loader,
+      Function<BatchLoader<K, V>, BatchLoader<K, V>> wrapper,
+      DataLoaderOptions options
+  ) {
+    // matched the same way the DataLoader matches keys, so keys sharing a cache key share a streamed future
+    CacheKey<K> cacheKeyFunction = options.cacheKeyFunction().orElse(null);
+    Function<K, Object> cacheKey = cacheKeyFunction == null ? key -> key : cacheKeyFunction::getKey;
+
+    ConcurrentMap<Object, CompletableFuture<V>> streamed = new ConcurrentHashMap<>();
+    return new StreamingDataLoader<>(wrapper.apply(streaming(loader, cacheKey, streamed)), options, streamed);
+  }
+
+  @Override
+  public CompletableFuture<V> load(K key, Object keyContext) {
+    CompletableFuture<V> future = super.load(key, keyContext);
+    if (future.isDone()) {
+      return future;
+    }
+
+    Object cacheKey = getCacheKey(key);
+    CompletableFuture<V> streamedFuture = streamed.computeIfAbsent(cacheKey, ignored -> new CompletableFuture<>());
+    future.whenComplete((value, error) -> {
+      // the batch can fail before the loader sees it, for example when it's rejected or times out
+      if (error == null) {
+        streamedFuture.complete(value);
+      } else {
+        streamedFuture.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+      }
+
+      streamed.remove(cacheKey, streamedFuture);
+    });
+
+    return streamedFuture;
+  }
+
+  private static <K, V> BatchLoader<K, V> streaming(
+      StreamingBatchLoader<K, V> loader,
+      Function<K, Object> cacheKey,
+      ConcurrentMap<Object, CompletableFuture<V>> streamed
+  ) {
+    return keys -> {
+      Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+      for (K key : keys) {
+        futures.put(key, streamed.computeIfAbsent(cacheKey.apply(key), ignored -> new CompletableFuture<>()));
+      }
+
+      CompletionStage<Void> loaded;
+      try {
+        loaded = loader.load(keys, new FutureResults<>(futures));
+      } catch (RuntimeException e) {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(e);
+        loaded = failed;
+      }
+
+      return loaded.handle((ignored, error) -> {
+        for (CompletableFuture<V> future : futures.values()) {
+          if (error == null) {
+            future.complete(null);
+          } else {
+            future.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+          }
+        }
+
+        // keys that already streamed keep their results, so only the rest fail with the batch
+        return results(keys, futures);
+      });
+    };
+  }
+
+  /**
+   * A failed key's value is its exception, which fails just that key's load
+   */
+  @SuppressWarnings("unchecked")
+  private static <K, V> List<V> results(List<K> keys, Map<K, CompletableFuture<V>> futures) {
+    List<V> results = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      Object result;
+      try {
+        result = futures.get(key).join();
+      } catch (CompletionException e) {
+        result = e.getCause();
+      }
+
+      results.add((V) result);
+    }
+
+    return results;
+  }
+
+  private static class FutureResults<K, V> implements BatchResults<K, V> {
+    private final Map<K, CompletableFuture<V>> futures;
+
+    private FutureResults(Map<K, CompletableFuture<V>> futures) {
+      this.futures = futures;
+    }
+
+    @Override
+    public void complete(K key, V value) {
+      CompletableFuture<V> future = futures.get(key);
+      if (future != null) {
+        future.complete(value);
+      }
+    }
+
+    @Override
+    public void fail(K key, Throwable error) {
+      CompletableFuture<V> future = futures.get(key);
+      if (future != null) {
+        future.completeExceptionally(error);
+      }
+    }
+  }
+}
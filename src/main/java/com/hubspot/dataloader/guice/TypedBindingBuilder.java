@@ -1,9 +1,143 @@
 package com.hubspot.dataloader.guice;
 
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
 import org.dataloader.BatchLoader;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
 import org.dataloader.MappedBatchLoader;
 
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
 public interface TypedBindingBuilder {
+  /**
+   * Use these options (max batch size, caching, batching, cache key function) for each request's DataLoader
+   */
+  TypedBindingBuilder withOptions(DataLoaderOptions options);
+
+  /**
+   * Look up the options from Guice each time a request creates this DataLoader, for example so they can come from config
+   */
+  TypedBindingBuilder withOptions(Key<? extends DataLoaderOptions> optionsKey);
+
+  /**
+   * Check a bounded cache shared across requests before queueing each key, and add successful results to it.
+   * The cache is bound as a singleton SharedDataLoaderCache with the same type parameters and name as the DataLoader
+   */
+  TypedBindingBuilder withSharedCache(SharedCacheOptions sharedCacheOptions);
+
+  /**
+   * Call the batch loader from this executor's threads rather than the thread that dispatched, for loaders that
+   * block. A {@link BatchLoaderExecutor} is bounded and reports its queue depth
+   */
+  TypedBindingBuilder withExecutor(Executor executor);
+
+  /**
+   * Look up the executor from Guice each time a request creates this DataLoader
+   */
+  TypedBindingBuilder withExecutor(Key<? extends Executor> executorKey);
+
+  /**
+   * Merge the batches that concurrent requests dispatch within this window into one call to the batch loader,
+   * and share keys that are already loading for another request. Each request still caches its own results.
+   * A zero window only shares keys that are already loading
+   */
+  TypedBindingBuilder withCollapsing(Duration window);
+
+  /**
+   * Split each dispatched batch into sub-batches of at most this many keys, with at most this many loading at once
+   * for each request. Keys complete as soon as their own sub-batch does. Overrides the options' max batch size,
+   * and can't be combined with {@link #withAdaptiveBatchSize}
+   */
+  TypedBindingBuilder withSubBatches(int subBatchSize, int maxConcurrentSubBatches);
+
+  /**
+   * Adjust the max batch size between the options' bounds from how long batches take to load, growing it while
+   * full batches are under the target latency and shrinking it when they go over. Each batch is split with the
+   * current size when it's dispatched, and completes once all of its pieces have. Overrides the options' max batch
+   * size and can't be combined with {@link #withSubBatches}. The current size can be read from the
+   * {@link AdaptiveBatchSize} bound with the DataLoader's name
+   */
+  TypedBindingBuilder withAdaptiveBatchSize(AdaptiveBatchSizeOptions adaptiveBatchSizeOptions);
+
+  /**
+   * Fail any batch that hasn't completed within this long, so a hung backend fails its keys with a TimeoutException
+   * rather than leaving them pending. Includes the time spent waiting for the binding's executor
+   */
+  TypedBindingBuilder withTimeout(Duration timeout);
+
+  /**
+   * Allow at most this many of the binding's batches to be loading at once, across every request. Any more are
+   * rejected straight away, failing their keys with a RejectedExecutionException. How often this and the timeout
+   * trigger can be read from the {@link BatchLoaderGuard} bound with the DataLoader's name
+   */
+  TypedBindingBuilder withMaxConcurrentBatches(int maxConcurrentBatches);
+
+  /**
+   * Bound each request's DataLoader cache, evicting its least recently used completed entries once it's over
+   * the maximum size or weight. Long keyed DataLoaders don't support it
+   */
+  TypedBindingBuilder withRequestCache(RequestCacheOptions requestCacheOptions);
+
+  /**
+   * Prime another of the request's DataLoaders with each value this one loads, under the key the function
+   * extracts from it. Lets a load by id answer later loads by a secondary key without another batch
+   */
+  <V> TypedBindingBuilder withPriming(String dataLoaderName, Function<? super V, ?> keyFunction);
+
+  /**
+   * Prime another of the request's DataLoaders with the values nested in each value this one loads, like a
+   * parent's children, under the keys the function extracts from them
+   */
+  <V, T> TypedBindingBuilder withPriming(
+      String dataLoaderName,
+      Function<? super V, ? extends Iterable<? extends T>> values,
+      Function<? super T, ?> keyFunction
+  );
+
   DataLoaderBinder toBatchLoader(Class<? extends BatchLoader> loaderClass);
   DataLoaderBinder toMappedBatchLoader(Class<? extends MappedBatchLoader> loaderClass);
+
+  /**
+   * Bind a loader keyed by primitive longs. Each request's DataLoader queues and caches its keys without boxing them,
+   * and is injectable as LongDataLoader&lt;V&gt; (to call load(long)) or DataLoader&lt;Long, V&gt;.
+   * Long keyed loaders don't support a shared cache, collapsing or request cache options, and don't count towards
+   * the request cache budget
+   */
+  DataLoaderBinder toLongBatchLoader(Class<? extends LongBatchLoader> loaderClass);
+
+  DataLoaderBinder toLongMappedBatchLoader(Class<? extends LongMappedBatchLoader> loaderClass);
+
+  /**
+   * Bind a loader that reports each key's result as soon as it has it, so each load completes without waiting for
+   * the rest of its batch. Streaming loaders don't support a shared cache or collapsing
+   */
+  DataLoaderBinder toStreamingBatchLoader(Class<? extends StreamingBatchLoader> loaderClass);
+
+  /**
+   * Load this DataLoader's keys through a group batch loader shared with the other DataLoaders bound to the same
+   * class. When any of them dispatches in a request, the others with keys queued are dispatched along with it and
+   * the group loader is called once for all of them. Members don't support a shared cache or collapsing
+   */
+  <K, V> DataLoaderBinder toLoadGroup(
+      Class<? extends GroupBatchLoader> loaderClass,
+      TypeLiteral<DataLoader<K, V>> dataLoaderType
+  );
+
+  /**
+   * Bind with the DataLoader's type given up front rather than resolved from the batch loader, used by the
+   * modules generated for {@link BindDataLoader}
+   */
+  <K, V> DataLoaderBinder toBatchLoader(
+      Class<? extends BatchLoader<K, V>> loaderClass,
+      TypeLiteral<DataLoader<K, V>> dataLoaderType
+  );
+
+  <K, V> DataLoaderBinder toMappedBatchLoader(
+      Class<? extends MappedBatchLoader<K, V>> loaderClass,
+      TypeLiteral<DataLoader<K, V>> dataLoaderType
+  );
 }
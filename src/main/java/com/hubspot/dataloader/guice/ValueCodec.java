@@ -0,0 +1,52 @@
+package com.hubspot.dataloader.guice;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+
+/**
+ * Converts a shared cache's values to and from bytes, so they can be kept off heap,
+ * see {@link SharedCacheOptions#setOffHeapTier}
+ */
+public interface ValueCodec<V> {
+
+  byte[] encode(V value);
+
+  V decode(byte[] bytes);
+
+  /**
+   * A codec using Java serialization, simple but slower and larger than a codec written for the value type
+   */
+  static <V extends Serializable> ValueCodec<V> serializable() {
+    return new ValueCodec<V>() {
+
+      @Override
+      public byte[] encode(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+          output.writeObject(value);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public V decode(byte[] bytes) {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+          return (V) input.readObject();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,177 @@
+package com.hubspot.dataloader.guice.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+
+import com.hubspot.dataloader.guice.BindDataLoader;
+
+/**
+ * Generates a GeneratedDataLoaderModule for each package with {@link BindDataLoader} loaders, binding them with
+ * their DataLoader types written out so nothing needs to be resolved when the injector is created
+ */
+@SupportedAnnotationTypes("com.hubspot.dataloader.guice.BindDataLoader")
+public class DataLoaderBindingProcessor extends AbstractProcessor {
+  private static final String MODULE_NAME = "GeneratedDataLoaderModule";
+  private static final String BATCH_LOADER = "org.dataloader.BatchLoader";
+  private static final String MAPPED_BATCH_LOADER = "org.dataloader.MappedBatchLoader";
+
+  // across rounds, so names are unique for the whole compilation
+  private final Map<String, TypeElement> names = new HashMap<>();
+  // across rounds too, since each package's module can only be written once, when processing is over
+  private final Map<String, List<String>> bindingsByPackage = new LinkedHashMap<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(BindDataLoader.class)) {
+      String name = element.getAnnotation(BindDataLoader.class).value();
+      String binding = toBinding(name, element);
+      if (binding == null) {
+        continue;
+      }
+
+      TypeElement existing = names.putIfAbsent(name, (TypeElement) element);
+      if (existing != null) {
+        error(element, "DataLoader name " + name + " is already bound to " + existing.getQualifiedName());
+        continue;
+      }
+
+      PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(element);
+      String packageName = packageElement.getQualifiedName().toString();
+      bindingsByPackage.computeIfAbsent(packageName, ignored -> new ArrayList<>()).add(binding);
+    }
+
+    if (roundEnv.processingOver()) {
+      bindingsByPackage.forEach(this::writeModule);
+      bindingsByPackage.clear();
+    }
+
+    return true;
+  }
+
+  /**
+   * @return the binder call for this loader, or null if it can't be bound
+   */
+  private String toBinding(String name, Element element) {
+    if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+      error(element, "@BindDataLoader must be on a concrete class");
+      return null;
+    }
+
+    TypeElement type = (TypeElement) element;
+    DeclaredType loaderType = findSupertype(type.asType(), BATCH_LOADER);
+    String method = "toBatchLoader";
+    if (loaderType == null) {
+      loaderType = findSupertype(type.asType(), MAPPED_BATCH_LOADER);
+      method = "toMappedBatchLoader";
+    }
+
+    if (loaderType == null || loaderType.getTypeArguments().size() != 2) {
+      error(element, "@BindDataLoader must be on a BatchLoader or MappedBatchLoader with its key and value types");
+      return null;
+    }
+
+    for (TypeMirror typeArgument : loaderType.getTypeArguments()) {
+      if (typeArgument.getKind() == TypeKind.TYPEVAR || typeArgument.getKind() == TypeKind.WILDCARD) {
+        error(element, "@BindDataLoader loaders must have concrete key and value types, got " + typeArgument);
+        return null;
+      }
+    }
+
+    return String.format(
+        "%n        .bindDataLoader(\"%s\")%n        .%s(%s.class, new TypeLiteral<DataLoader<%s, %s>>() {})",
+        escape(name),
+        method,
+        processingEnv.getTypeUtils().erasure(type.asType()),
+        loaderType.getTypeArguments().get(0),
+        loaderType.getTypeArguments().get(1)
+    );
+  }
+
+  /**
+   * Walk the supertypes, which have the subclass's type arguments substituted in, until we find the loader interface
+   */
+  private DeclaredType findSupertype(TypeMirror type, String supertypeName) {
+    for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+      DeclaredType declaredType = (DeclaredType) supertype;
+      if (((TypeElement) declaredType.asElement()).getQualifiedName().contentEquals(supertypeName)) {
+        return declaredType;
+      }
+
+      DeclaredType found = findSupertype(supertype, supertypeName);
+      if (found != null) {
+        return found;
+      }
+    }
+
+    return null;
+  }
+
+  private void writeModule(String packageName, List<String> bindings) {
+    String className = packageName.isEmpty() ? MODULE_NAME : packageName + "." + MODULE_NAME;
+
+    StringBuilder source = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      source.append("package ").append(packageName).append(";\n\n");
+    }
+
+    source.append("import com.google.inject.AbstractModule;\n")
+        .append("import com.google.inject.TypeLiteral;\n")
+        .append("import com.hubspot.dataloader.guice.DataLoaderBinder;\n")
+        .append("import org.dataloader.DataLoader;\n\n")
+        .append("public final class ").append(MODULE_NAME).append(" extends AbstractModule {\n\n")
+        .append("  @Override\n")
+        .append("  protected void configure() {\n")
+        .append("    DataLoaderBinder.newDataLoaderBinder(binder())");
+    bindings.forEach(source::append);
+    source.append(";\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public boolean equals(Object o) {\n")
+        .append("    return o != null && getClass().equals(o.getClass());\n")
+        .append("  }\n\n")
+        .append("  @Override\n")
+        .append("  public int hashCode() {\n")
+        .append("    return getClass().hashCode();\n")
+        .append("  }\n")
+        .append("}\n");
+
+    try (Writer writer = processingEnv.getFiler().createSourceFile(className).openWriter()) {
+      writer.write(source.toString());
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Kind.ERROR, "Couldn't write " + className + ": " + e.getMessage());
+    }
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+  }
+
+  private static String escape(String name) {
+    return name.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
@@ -0,0 +1,125 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.ServletScopes;
+
+public class AdaptiveBatchSizeTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    injector = Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("counting")
+          .withAdaptiveBatchSize(
+              AdaptiveBatchSizeOptions.newOptions()
+                  .setMinBatchSize(2)
+                  .setMaxBatchSize(4)
+                  .setTargetLatency(Duration.ofHours(1))
+          )
+          .toBatchLoader(CountingBatchLoader.class);
+    });
+  }
+
+  @Test
+  public void itGrowsTheBatchSizeForLaterRequests() {
+    AdaptiveBatchSize batchSize = injector.getInstance(Key.get(AdaptiveBatchSize.class, Names.named("counting")));
+    DataLoader<String, String> countingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("counting")));
+    assertThat(batchSize.getBatchSize()).isEqualTo(2);
+
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      countingDataLoader.loadMany(Arrays.asList("a", "b", "c"));
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      // split with the size when it was dispatched
+      assertThat(CountingBatchLoader.LAST_KEYS.get()).containsExactly("c");
+    }
+
+    // the full batch was well under the target
+    assertThat(batchSize.getBatchSize()).isEqualTo(3);
+
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      countingDataLoader.loadMany(Arrays.asList("a", "b", "c"));
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      assertThat(CountingBatchLoader.LAST_KEYS.get()).containsExactly("a", "b", "c");
+    }
+
+    assertThat(batchSize.getBatchSize()).isEqualTo(4);
+  }
+
+  @Test
+  public void itUsesTheCurrentSizeForEachDispatch() {
+    DataLoader<String, String> countingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("counting")));
+
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      countingDataLoader.loadMany(Arrays.asList("a", "b", "c"));
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+      assertThat(CountingBatchLoader.LAST_KEYS.get()).containsExactly("c");
+
+      // grown by the first batch, later in the same request
+      countingDataLoader.loadMany(Arrays.asList("d", "e", "f"));
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+      assertThat(CountingBatchLoader.LAST_KEYS.get()).containsExactly("d", "e", "f");
+    }
+  }
+
+  @Test
+  public void itRejectsSubBatchesWithAnAdaptiveBatchSize() {
+    assertThatThrownBy(() -> Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("counting")
+          .withSubBatches(10, 2)
+          .withAdaptiveBatchSize(AdaptiveBatchSizeOptions.newOptions())
+          .toBatchLoader(CountingBatchLoader.class);
+    })).hasMessageContaining("can't use both sub-batches and an adaptive batch size");
+  }
+
+  @Test
+  public void itShrinksTheBatchSizeWhenBatchesAreSlow() {
+    AdaptiveBatchSize batchSize = new AdaptiveBatchSize(
+        AdaptiveBatchSizeOptions.newOptions()
+            .setMinBatchSize(10)
+            .setMaxBatchSize(100)
+            .setTargetLatency(Duration.ofMillis(10))
+    );
+
+    for (int i = 0; i < 30; i++) {
+      batchSize.record(batchSize.getBatchSize(), TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    assertThat(batchSize.getBatchSize()).isEqualTo(100);
+
+    batchSize.record(100, TimeUnit.MILLISECONDS.toNanos(50));
+    assertThat(batchSize.getBatchSize()).isEqualTo(75);
+
+    // never below the min
+    for (int i = 0; i < 20; i++) {
+      batchSize.record(batchSize.getBatchSize(), TimeUnit.MILLISECONDS.toNanos(50));
+    }
+    assertThat(batchSize.getBatchSize()).isEqualTo(10);
+  }
+}
@@ -0,0 +1,74 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class BatchLoaderGuardTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    ManualBatchLoader.BATCHES.clear();
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("manual")
+          .withTimeout(Duration.ofMillis(50))
+          .withMaxConcurrentBatches(1)
+          .toBatchLoader(ManualBatchLoader.class);
+    });
+  }
+
+  @Test
+  public void itRejectsAndTimesOutBatches() {
+    DataLoader<String, String> manualDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("manual")));
+    BatchLoaderGuard guard = injector.getInstance(Key.get(BatchLoaderGuard.class, Names.named("manual")));
+
+    CompletableFuture<String> hungFuture;
+    CompletableFuture<String> callbackThread;
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      hungFuture = manualDataLoader.load("a");
+      callbackThread = hungFuture.handle((value, error) -> Thread.currentThread().getName());
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+    }
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      // the other request's batch is still loading
+      CompletableFuture<String> rejectedFuture = manualDataLoader.load("b");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      assertThatThrownBy(rejectedFuture::join).hasCauseInstanceOf(RejectedExecutionException.class);
+      assertThat(guard.getRejectionCount()).isEqualTo(1);
+    }
+
+    assertThatThrownBy(() -> hungFuture.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+    assertThat(guard.getTimeoutCount()).isEqualTo(1);
+    // the timeout's scheduler hands failing the keys off, so callbacks can't hold it up
+    assertThat(callbackThread.join()).startsWith("dataloader-background");
+
+    // it holds its place until the batch loader actually completes
+    assertThat(guard.getLoadingBatches()).isEqualTo(1);
+    ManualBatchLoader.BATCHES.poll().complete();
+    assertThat(guard.getLoadingBatches()).isEqualTo(0);
+  }
+}
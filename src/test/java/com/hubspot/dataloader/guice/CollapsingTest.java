@@ -0,0 +1,107 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.name.Names;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class CollapsingTest {
+  private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    CountingBatchLoader.BATCHES.set(0);
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule());
+      OptionalBinder.newOptionalBinder(binder, Key.get(ScheduledExecutorService.class, DataLoaderScheduler.class))
+          .setBinding()
+          .toInstance(scheduler);
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      dataLoaderBinder
+          .bindDataLoader("counting")
+          .withCollapsing(Duration.ofMillis(100))
+          .toBatchLoader(CountingBatchLoader.class);
+      dataLoaderBinder
+          .bindDataLoader("threadName")
+          .withOptions(DataLoaderOptions.newOptions().setCacheKeyFunction(key -> key.toString().toLowerCase()))
+          .withCollapsing(Duration.ofMillis(100))
+          .toBatchLoader(ThreadNameBatchLoader.class);
+    });
+  }
+
+  @After
+  public void teardown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void itMergesConcurrentRequestsIntoOneBatch() throws Exception {
+    DataLoader<String, String> countingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("counting")));
+
+    CompletableFuture<String> firstFuture;
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      firstFuture = countingDataLoader.load("Bill");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+    }
+
+    CompletableFuture<String> secondFuture;
+    CompletableFuture<String> otherFuture;
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      secondFuture = countingDataLoader.load("Bill");
+      otherFuture = countingDataLoader.load("Anne");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+    }
+
+    assertThat(firstFuture.get(5, TimeUnit.SECONDS)).isEqualTo("Counted Bill");
+    assertThat(secondFuture.get(5, TimeUnit.SECONDS)).isEqualTo("Counted Bill");
+    assertThat(otherFuture.get(5, TimeUnit.SECONDS)).isEqualTo("Counted Anne");
+
+    assertThat(CountingBatchLoader.BATCHES.get()).isEqualTo(1);
+    assertThat(CountingBatchLoader.LAST_KEYS.get()).containsExactly("Bill", "Anne");
+    // the window was timed on the bound scheduler
+    assertThat(scheduler.getTaskCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void itMatchesKeysByCacheKeyAndLoadsOffTheScheduler() throws Exception {
+    DataLoader<String, String> threadNameDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("threadName")));
+
+    CompletableFuture<String> firstFuture;
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      firstFuture = threadNameDataLoader.load("Bill");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+    }
+
+    CompletableFuture<String> secondFuture;
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      secondFuture = threadNameDataLoader.load("BILL");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+    }
+
+    // loaded once, for the first key, on the background executor rather than the scheduler
+    assertThat(firstFuture.get(5, TimeUnit.SECONDS)).startsWith("Bill loaded on dataloader-background-");
+    assertThat(secondFuture.get(5, TimeUnit.SECONDS)).isEqualTo(firstFuture.get());
+  }
+}
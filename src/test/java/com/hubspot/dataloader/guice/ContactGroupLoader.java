@@ -0,0 +1,33 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Answers every member but "contactByVid", which it leaves out of its results
+ */
+public class ContactGroupLoader implements GroupBatchLoader {
+  public static final AtomicReference<Map<String, List<?>>> LAST_KEYS = new AtomicReference<>();
+  public static final AtomicInteger CALLS = new AtomicInteger();
+
+  @Override
+  public CompletionStage<Map<String, List<?>>> load(Map<String, List<?>> keys) {
+    CALLS.incrementAndGet();
+    LAST_KEYS.set(keys);
+
+    Map<String, List<?>> values = new LinkedHashMap<>();
+    keys.forEach((name, memberKeys) -> {
+      if (!name.equals("contactByVid")) {
+        values.put(name, memberKeys.stream().map(key -> "Contact " + name + " " + key).collect(Collectors.toList()));
+      }
+    });
+
+    return CompletableFuture.completedFuture(values);
+  }
+}
@@ -0,0 +1,28 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.dataloader.BatchLoader;
+
+public class CountingBatchLoader implements BatchLoader<String, String> {
+  public static final AtomicInteger INSTANCES = new AtomicInteger();
+  public static final AtomicInteger BATCHES = new AtomicInteger();
+  public static final AtomicReference<List<String>> LAST_KEYS = new AtomicReference<>();
+
+  public CountingBatchLoader() {
+    INSTANCES.incrementAndGet();
+  }
+
+  @Override
+  public CompletionStage<List<String>> load(List<String> keys) {
+    BATCHES.incrementAndGet();
+    LAST_KEYS.set(keys);
+    List<String> values = keys.stream().map(key -> "Counted " + key).collect(Collectors.toList());
+    return CompletableFuture.completedFuture(values);
+  }
+}
@@ -2,12 +2,19 @@ package com.hubspot.dataloader.guice;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
 import org.dataloader.DataLoaderRegistry;
 import org.junit.Before;
 import org.junit.Test;
@@ -15,7 +22,10 @@ import org.junit.Test;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
 import com.google.inject.name.Named;
+import com.google.inject.name.Names;
 import com.google.inject.servlet.RequestScoper.CloseableScope;
 import com.google.inject.servlet.ServletModule;
 import com.google.inject.servlet.ServletScopes;
@@ -25,16 +35,27 @@ public class DataLoaderBinderTest {
 
   @Before
   public void setup() {
+    CountingBatchLoader.BATCHES.set(0);
+
     injector = Guice.createInjector(binder -> {
       binder.install(new ServletModule());
       binder.bind(SalutationResolver.class).asEagerSingleton();
+      binder.bind(DataLoaderOptions.class)
+          .annotatedWith(Names.named("counting"))
+          .toInstance(DataLoaderOptions.newOptions().setMaxBatchSize(2));
 
       binder.install(new DataLoaderModule());
       DataLoaderBinder.newDataLoaderBinder(binder)
           .bindDataLoader("greeting").toBatchLoader(GreetingBatchLoader.class)
           .bindDataLoader("farewell").toBatchLoader(FarewellBatchLoader.class)
           .bindDataLoader("congratulations").toBatchLoader(CongratulationsBatchLoader.class)
-          .bindDataLoader("random").toBatchLoader(RandomBatchLoader.class);
+          .bindDataLoader("random").toBatchLoader(RandomBatchLoader.class)
+          .bindDataLoader("counting")
+          .withOptions(Key.get(DataLoaderOptions.class, Names.named("counting")))
+          .toBatchLoader(CountingBatchLoader.class)
+          .bindDataLoader("threadName")
+          .withExecutor(BatchLoaderExecutor.newBoundedExecutor("threadName", 1, 10))
+          .toBatchLoader(ThreadNameBatchLoader.class);
     });
   }
 
@@ -143,6 +164,73 @@ public class DataLoaderBinderTest {
     });
   }
 
+  @Test
+  public void itUsesTheBindingOptions() {
+    DataLoader<String, String> countingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("counting")));
+
+    inRequestScope(() -> {
+      CompletableFuture<List<String>> future = countingDataLoader.loadMany(Arrays.asList("a", "b", "c", "d", "e"));
+
+      dispatch();
+
+      assertThat(future.getNow(null)).containsExactly("Counted a", "Counted b", "Counted c", "Counted d", "Counted e");
+      assertThat(CountingBatchLoader.BATCHES.get()).isEqualTo(3);
+    });
+  }
+
+  @Test
+  public void itCallsTheBatchLoaderOnTheBindingExecutor() throws Exception {
+    DataLoader<String, String> threadNameDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("threadName")));
+
+    AtomicReference<CompletableFuture<String>> future = new AtomicReference<>();
+    inRequestScope(() -> {
+      future.set(threadNameDataLoader.load("Bill"));
+      dispatch();
+    });
+
+    assertThat(future.get().get(5, TimeUnit.SECONDS)).isEqualTo("Bill loaded on dataloader-threadName-0");
+  }
+
+  @Test
+  public void itDispatchesUntilQuiescent() {
+    SalutationResolver resolver = injector.getInstance(SalutationResolver.class);
+
+    inRequestScope(() -> {
+      CompletableFuture<String> chainedFuture = resolver.sayHello("Bill")
+          .thenCompose(resolver::sayHello)
+          .thenCompose(resolver::sayGoodbye);
+      CompletableFuture<String> farewellFuture = resolver.sayGoodbye("Anne");
+
+      RequestDataLoaderRegistry registry = (RequestDataLoaderRegistry) injector.getInstance(DataLoaderRegistry.class);
+      assertThat(registry.dispatchUntilQuiescent().join()).isEqualTo(3);
+
+      assertThat(chainedFuture.getNow(null)).isEqualTo("Goodbye Hello Hello Bill");
+      assertThat(farewellFuture.getNow(null)).isEqualTo("Goodbye Anne");
+    });
+  }
+
+  @Test
+  public void itUsesTheSameDataLoaderWhenARequestIsTransferred() throws Exception {
+    SalutationResolver resolver = injector.getInstance(SalutationResolver.class);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      AtomicReference<CompletableFuture<String>> greetingFuture = new AtomicReference<>();
+      AtomicReference<Callable<CompletableFuture<String>>> transferred = new AtomicReference<>();
+      inRequestScope(() -> {
+        greetingFuture.set(resolver.sayHello("Bill"));
+        transferred.set(ServletScopes.transferRequest(() -> resolver.sayHello("Bill")));
+      });
+
+      // same request on another thread should hit the same request's DataLoader
+      assertThat(executor.submit(transferred.get()).get()).isSameAs(greetingFuture.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   private void dispatch() {
     injector.getInstance(DataLoaderRegistry.class).dispatchAll();
   }
@@ -0,0 +1,118 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.ServletScopes;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class DataLoaderMetricsTest {
+  private final RecordingMetrics metrics = new RecordingMetrics();
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    injector = Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+      binder.install(new DataLoaderModule().withLazyRegistry());
+
+      OptionalBinder.newOptionalBinder(binder, DataLoaderMetrics.class).setBinding().toInstance(metrics);
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("greeting").toBatchLoader(GreetingBatchLoader.class)
+          .bindDataLoader("farewell").toBatchLoader(FarewellBatchLoader.class);
+    });
+  }
+
+  @Test
+  public void itRecordsBatchesAndRequests() throws Exception {
+    DataLoader<String, String> greetingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+    DataLoaderReleaseFilter filter = injector.getInstance(DataLoaderReleaseFilter.class);
+
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      filter.doFilter(null, null, (request, response) -> {
+        DataLoaderRegistry registry = injector.getInstance(DataLoaderRegistry.class);
+
+        greetingDataLoader.loadMany(Arrays.asList("Bill", "Anne", "Bill"));
+        registry.dispatchAll();
+        greetingDataLoader.load("Anne");
+        greetingDataLoader.load("Travis");
+        registry.dispatchAll();
+      });
+    }
+
+    assertThat(metrics.batches).containsExactly("greeting:2", "greeting:1");
+    // the unused farewell DataLoader isn't reported
+    assertThat(metrics.requests).containsExactly("greeting:5:2:2");
+  }
+
+  @Test
+  public void itRecordsRequestsWhenTheirContextEnds() {
+    DataLoader<String, String> greetingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+
+    DataLoaderContext context = DataLoaderContext.newContext();
+    try (CloseableContext ignored = context.open()) {
+      greetingDataLoader.load("Bill");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+    }
+    assertThat(metrics.requests).isEmpty();
+
+    context.end();
+    assertThat(metrics.requests).containsExactly("greeting:1:0:1");
+  }
+
+  @Test
+  public void itOnlyRecordsRequestsThatUsedADataLoader() throws Exception {
+    DataLoader<String, String> greetingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+    DataLoaderReleaseFilter filter = injector.getInstance(DataLoaderReleaseFilter.class);
+
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      filter.doFilter(null, null, (request, response) -> {
+        greetingDataLoader.load("Bill");
+        injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+      });
+    }
+
+    // a request that never used a DataLoader
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      filter.doFilter(null, null, (request, response) -> {});
+    }
+
+    assertThat(metrics.requests).containsExactly("greeting:1:0:1");
+  }
+
+  private static class RecordingMetrics implements DataLoaderMetrics {
+    private final List<String> batches = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public void recordBatch(String name, int batchSize, long loadNanos) {
+      assertThat(loadNanos).isGreaterThanOrEqualTo(0);
+      batches.add(name + ":" + batchSize);
+    }
+
+    @Override
+    public void recordRequest(String name, long loadedKeys, long cacheHits, int dispatchRounds) {
+      requests.add(name + ":" + loadedKeys + ":" + cacheHits + ":" + dispatchRounds);
+    }
+  }
+}
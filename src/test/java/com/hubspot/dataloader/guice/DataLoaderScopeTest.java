@@ -0,0 +1,108 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.dataloader.BatchLoader;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class DataLoaderScopeTest {
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private Injector injector;
+  private DataLoader<String, String> greetingDataLoader;
+
+  @Before
+  public void setup() {
+    // no ServletModule, everything runs in an explicit DataLoaderContext
+    injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("greeting").toBatchLoader(GreetingBatchLoader.class)
+          .bindDataLoader("context").withExecutor(executor).toBatchLoader(ContextBatchLoader.class);
+    });
+
+    greetingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+  }
+
+  @After
+  public void teardown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void itFollowsTheContextAcrossThreads() throws Exception {
+    DataLoaderContext context = DataLoaderContext.newContext();
+
+    CompletableFuture<String> billFuture;
+    CompletableFuture<CompletableFuture<String>> continuedFuture;
+    try (CloseableContext ignored = context.open()) {
+      billFuture = greetingDataLoader.load("Bill");
+      continuedFuture = CompletableFuture.supplyAsync(() -> greetingDataLoader.load("Bill"), context.executor(executor));
+    }
+
+    // the other thread should see the same context's DataLoader
+    assertThat(continuedFuture.get(5, TimeUnit.SECONDS)).isSameAs(billFuture);
+
+    executor.submit(context.wrap(() -> injector.getInstance(DataLoaderRegistry.class).dispatchAll())).get(5, TimeUnit.SECONDS);
+    assertThat(billFuture.getNow(null)).isEqualTo("Hello Bill");
+  }
+
+  @Test
+  public void itLoadsOnTheBindingsExecutorInTheContext() {
+    DataLoaderContext context = DataLoaderContext.newContext();
+    DataLoader<String, DataLoaderContext> contextDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, DataLoaderContext>>() {}, Names.named("context")));
+
+    try (CloseableContext ignored = context.open()) {
+      CompletableFuture<DataLoaderContext> future = contextDataLoader.load("Bill");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      assertThat(future.join()).isSameAs(context);
+    }
+  }
+
+  @Test
+  public void itSeparatesContexts() {
+    CompletableFuture<String> firstFuture;
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      firstFuture = greetingDataLoader.load("Bill");
+    }
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      assertThat(greetingDataLoader.load("Bill")).isNotSameAs(firstFuture);
+    }
+
+    assertThatThrownBy(() -> greetingDataLoader.load("Bill")).isInstanceOf(OutOfScopeException.class);
+  }
+
+  public static class ContextBatchLoader implements BatchLoader<String, DataLoaderContext> {
+
+    @Override
+    public CompletionStage<List<DataLoaderContext>> load(List<String> keys) {
+      DataLoaderContext context = DataLoaderContext.current();
+      return CompletableFuture.completedFuture(keys.stream().map(key -> context).collect(Collectors.toList()));
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dataloader.DataLoader;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.ServletScopes;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class DispatchStrategyTest {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  @After
+  public void teardown() {
+    scheduler.shutdown();
+  }
+
+  @Test
+  public void itDispatchesAfterQueuedKeys() {
+    DataLoader<String, String> dataLoader = getGreetingDataLoader(DispatchStrategy.afterQueuedKeys(2));
+
+    inRequestScope(() -> {
+      CompletableFuture<String> billFuture = dataLoader.load("Bill");
+      CompletableFuture<String> cachedFuture = dataLoader.load("Bill");
+      assertThat(billFuture.isDone()).isFalse();
+      assertThat(cachedFuture.isDone()).isFalse();
+
+      CompletableFuture<String> anneFuture = dataLoader.load("Anne");
+      assertThat(billFuture.getNow(null)).isEqualTo("Hello Bill");
+      assertThat(anneFuture.getNow(null)).isEqualTo("Hello Anne");
+    });
+  }
+
+  @Test
+  public void itDispatchesAfterAWindow() throws Exception {
+    DataLoader<String, String> dataLoader = getGreetingDataLoader(DispatchStrategy.afterWindow(1000, scheduler));
+
+    CompletableFuture<String> billFuture = new CompletableFuture<>();
+    inRequestScope(() -> dataLoader.load("Bill").thenAccept(billFuture::complete));
+
+    assertThat(billFuture.get(5, TimeUnit.SECONDS)).isEqualTo("Hello Bill");
+  }
+
+  @Test
+  public void itDispatchesWhenIdle() {
+    DataLoader<String, String> dataLoader = getGreetingDataLoader(DispatchStrategy.whenIdle());
+
+    inRequestScope(() -> {
+      CompletableFuture<String> billFuture = dataLoader.load("Bill");
+      CompletableFuture<String> anneFuture = dataLoader.load("Anne");
+      assertThat(billFuture.isDone()).isFalse();
+
+      CompletableFuture<String> chainedFuture = dataLoader.load("Travis").thenCompose(dataLoader::load);
+
+      assertThat(billFuture.join()).isEqualTo("Hello Bill");
+      assertThat(anneFuture.getNow(null)).isEqualTo("Hello Anne");
+
+      // the chained key was queued by the first dispatch, it's dispatched too before anything waits
+      assertThat(chainedFuture.getNow(null)).isEqualTo("Hello Hello Travis");
+      assertThat(dataLoader.load("Hello Travis").join()).isEqualTo("Hello Hello Travis");
+    });
+  }
+
+  @Test
+  public void itDispatchesKeysQueuedWhileWaitingWhenIdle() throws Exception {
+    ManualBatchLoader.BATCHES.clear();
+    Injector injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule());
+
+      OptionalBinder.newOptionalBinder(binder, DispatchStrategy.class).setBinding().toInstance(DispatchStrategy.whenIdle());
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("manual").toBatchLoader(ManualBatchLoader.class);
+    });
+    DataLoader<String, String> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("manual")));
+
+    ExecutorService waiter = Executors.newSingleThreadExecutor();
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      CompletableFuture<String> billFuture = dataLoader.load("Bill");
+      Future<String> waited = waiter.submit(() -> billFuture.get(5, TimeUnit.SECONDS));
+      awaitBatches(1);
+
+      // queued while the other thread waits on Bill's batch, which wakes it to dispatch
+      CompletableFuture<String> anneFuture = dataLoader.load("Anne");
+      awaitBatches(2);
+
+      ManualBatchLoader.BATCHES.forEach(ManualBatchLoader.Batch::complete);
+      assertThat(waited.get(5, TimeUnit.SECONDS)).isEqualTo("Loaded Bill");
+      assertThat(anneFuture.getNow(null)).isEqualTo("Loaded Anne");
+    } finally {
+      waiter.shutdown();
+    }
+  }
+
+  @Test
+  public void itLooksUpTheStrategyForEachRequest() {
+    AtomicInteger lookups = new AtomicInteger();
+    Injector injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule().withPooling(1));
+
+      OptionalBinder.newOptionalBinder(binder, DispatchStrategy.class).setBinding().toProvider(() -> {
+        lookups.incrementAndGet();
+        return DispatchStrategy.afterQueuedKeys(1);
+      });
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("greeting").toBatchLoader(GreetingBatchLoader.class);
+    });
+    DataLoader<String, String> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+
+    for (int i = 0; i < 2; i++) {
+      DataLoaderContext context = DataLoaderContext.newContext();
+      try (CloseableContext ignored = context.open()) {
+        assertThat(dataLoader.load("Bill").getNow(null)).isEqualTo("Hello Bill");
+      }
+      context.end();
+    }
+
+    // the second request reuses the first one's DataLoaders, but not its strategy
+    assertThat(lookups.get()).isEqualTo(2);
+  }
+
+  private static void awaitBatches(int batches) throws InterruptedException {
+    for (int i = 0; i < 250 && ManualBatchLoader.BATCHES.size() < batches; i++) {
+      Thread.sleep(20);
+    }
+
+    assertThat(ManualBatchLoader.BATCHES).hasSize(batches);
+  }
+
+  private DataLoader<String, String> getGreetingDataLoader(DispatchStrategy dispatchStrategy) {
+    Injector injector = Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+      binder.install(new DataLoaderModule());
+
+      OptionalBinder.newOptionalBinder(binder, DispatchStrategy.class).setBinding().toInstance(dispatchStrategy);
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("greeting").toBatchLoader(GreetingBatchLoader.class);
+    });
+
+    return injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+  }
+
+  private static void inRequestScope(Runnable r) {
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      r.run();
+    }
+  }
+}
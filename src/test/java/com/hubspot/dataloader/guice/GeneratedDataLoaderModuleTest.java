@@ -0,0 +1,43 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.ServletScopes;
+
+public class GeneratedDataLoaderModuleTest {
+
+  @Test
+  public void itBindsAnnotatedLoaders() {
+    Injector injector = Guice.createInjector(
+        new ServletModule(),
+        new DataLoaderModule(),
+        new GeneratedDataLoaderModule(),
+        // installing it twice is fine
+        new GeneratedDataLoaderModule()
+    );
+
+    DataLoader<String, String> greetingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      CompletableFuture<String> greetingFuture = greetingDataLoader.load("Bill");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      assertThat(greetingFuture.getNow(null)).isEqualTo("Hello Bill");
+    }
+  }
+}
@@ -7,6 +7,7 @@ import java.util.stream.Collectors;
 
 import org.dataloader.BatchLoader;
 
+@BindDataLoader("greeting")
 public class GreetingBatchLoader implements BatchLoader<String, String> {
 
   @Override
@@ -0,0 +1,86 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.ServletScopes;
+
+public class LazyDataLoaderRegistryTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    CountingBatchLoader.INSTANCES.set(0);
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+
+      binder.install(new DataLoaderModule().withLazyRegistry());
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("greeting").toBatchLoader(GreetingBatchLoader.class)
+          .bindDataLoader("counting").toBatchLoader(CountingBatchLoader.class);
+    });
+  }
+
+  @Test
+  public void itOnlyCreatesDataLoadersThatAreUsed() {
+    DataLoader<String, String> greetingDataLoader = getDataLoader("greeting");
+
+    inRequestScope(() -> {
+      DataLoaderRegistry registry = injector.getInstance(DataLoaderRegistry.class);
+      assertThat(registry.getKeys()).containsExactly("greeting", "counting");
+      assertThat(registry.getDataLoaders()).isEmpty();
+
+      CompletableFuture<String> greetingFuture = greetingDataLoader.load("Bill");
+      assertThat(registry.getDataLoaders()).hasSize(1);
+
+      registry.dispatchAll();
+
+      assertThat(greetingFuture.getNow(null)).isEqualTo("Hello Bill");
+      assertThat(CountingBatchLoader.INSTANCES.get()).isZero();
+    });
+  }
+
+  @Test
+  public void itCreatesDataLoadersFromTheRegistry() {
+    DataLoader<String, String> countingDataLoader = getDataLoader("counting");
+
+    inRequestScope(() -> {
+      DataLoaderRegistry registry = injector.getInstance(DataLoaderRegistry.class);
+      CompletableFuture<String> countingFuture = registry.<String, String>getDataLoader("counting").load("Anne");
+
+      // the singleton wrapper should resolve to the same request scoped instance
+      CompletableFuture<String> otherFuture = countingDataLoader.load("Anne");
+      assertThat(otherFuture).isSameAs(countingFuture);
+
+      registry.dispatchAll();
+
+      assertThat(countingFuture.getNow(null)).isEqualTo("Counted Anne");
+      assertThat(CountingBatchLoader.INSTANCES.get()).isEqualTo(1);
+    });
+  }
+
+  private DataLoader<String, String> getDataLoader(String name) {
+    return injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named(name)));
+  }
+
+  private static void inRequestScope(Runnable r) {
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      r.run();
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class LoadGroupTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    ContactGroupLoader.CALLS.set(0);
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule().withLazyRegistry());
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      dataLoaderBinder
+          .bindDataLoader("contactById")
+          .toLoadGroup(ContactGroupLoader.class, new TypeLiteral<DataLoader<Long, String>>() {});
+      dataLoaderBinder
+          .bindDataLoader("contactByEmail")
+          .toLoadGroup(ContactGroupLoader.class, new TypeLiteral<DataLoader<String, String>>() {});
+      dataLoaderBinder
+          .bindDataLoader("contactByVid")
+          .toLoadGroup(ContactGroupLoader.class, new TypeLiteral<DataLoader<Long, String>>() {});
+    });
+  }
+
+  @Test
+  public void itLoadsTheGroupsKeysInOneCall() {
+    DataLoader<Long, String> byId = dataLoader(new TypeLiteral<DataLoader<Long, String>>() {}, "contactById");
+    DataLoader<String, String> byEmail = dataLoader(new TypeLiteral<DataLoader<String, String>>() {}, "contactByEmail");
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      CompletableFuture<String> first = byId.load(1L);
+      CompletableFuture<String> second = byId.load(2L);
+      CompletableFuture<String> email = byEmail.load("a@example.com");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      assertThat(ContactGroupLoader.CALLS.get()).isEqualTo(1);
+      assertThat(ContactGroupLoader.LAST_KEYS.get()).containsOnlyKeys("contactById", "contactByEmail");
+      assertThat(first.getNow(null)).isEqualTo("Contact contactById 1");
+      assertThat(second.getNow(null)).isEqualTo("Contact contactById 2");
+      assertThat(email.getNow(null)).isEqualTo("Contact contactByEmail a@example.com");
+    }
+  }
+
+  @Test
+  public void itFailsMembersMissingFromTheResults() {
+    DataLoader<Long, String> byId = dataLoader(new TypeLiteral<DataLoader<Long, String>>() {}, "contactById");
+    DataLoader<Long, String> byVid = dataLoader(new TypeLiteral<DataLoader<Long, String>>() {}, "contactByVid");
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      CompletableFuture<String> id = byId.load(1L);
+      CompletableFuture<String> vid = byVid.load(1L);
+      // dispatching one member is enough to take the others' keys along
+      byVid.dispatch();
+
+      assertThat(ContactGroupLoader.CALLS.get()).isEqualTo(1);
+      assertThat(id.getNow(null)).isEqualTo("Contact contactById 1");
+      assertThatThrownBy(vid::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  private <K> DataLoader<K, String> dataLoader(TypeLiteral<DataLoader<K, String>> type, String name) {
+    return injector.getInstance(Key.get(type, Names.named(name)));
+  }
+}
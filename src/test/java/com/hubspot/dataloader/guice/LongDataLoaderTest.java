@@ -0,0 +1,96 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.multibindings.OptionalBinder;
+import com.google.inject.servlet.ServletScopes;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class LongDataLoaderTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    UserNameBatchLoader.BATCHES.set(0);
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("userName")
+          .withOptions(DataLoaderOptions.newOptions().setMaxBatchSize(2))
+          .toLongBatchLoader(UserNameBatchLoader.class);
+    });
+  }
+
+  @Test
+  public void itLoadsPrimitiveKeys() {
+    LongDataLoader<String> userNameDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<LongDataLoader<String>>() {}, Names.named("userName")));
+    DataLoader<Long, String> boxedDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<Long, String>>() {}, Names.named("userName")));
+    assertThat(boxedDataLoader).isSameAs(userNameDataLoader);
+
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      CompletableFuture<String> firstFuture = userNameDataLoader.load(1);
+      CompletableFuture<List<String>> manyFuture = userNameDataLoader.loadMany(new long[] { 2, 3 });
+      assertThat(boxedDataLoader.load(1L)).isSameAs(firstFuture);
+      assertThat(userNameDataLoader.dispatchDepth()).isEqualTo(3);
+
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      assertThat(firstFuture.getNow(null)).isEqualTo("User 1");
+      assertThat(manyFuture.getNow(null)).containsExactly("User 2", "User 3");
+      assertThat(UserNameBatchLoader.BATCHES.get()).isEqualTo(2);
+
+      assertThat(userNameDataLoader.getStatistics().getLoadCount()).isEqualTo(4);
+      assertThat(userNameDataLoader.getStatistics().getCacheHitCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void itKeepsKeysUnboxedThroughPooledAndDispatchingDataLoaders() {
+    Injector pooledInjector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule().withPooling(1));
+      OptionalBinder.newOptionalBinder(binder, DispatchStrategy.class)
+          .setBinding()
+          .toInstance(DispatchStrategy.afterQueuedKeys(2));
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("userName")
+          .toLongBatchLoader(UserNameBatchLoader.class);
+    });
+    LongDataLoader<String> userNameDataLoader =
+        pooledInjector.getInstance(Key.get(new TypeLiteral<LongDataLoader<String>>() {}, Names.named("userName")));
+
+    DataLoaderContext context = DataLoaderContext.newContext();
+    try (CloseableContext ignored = context.open()) {
+      assertThat(pooledInjector.getInstance(RequestDataLoaders.class).get("userName")).isInstanceOf(LongKeyed.class);
+
+      CompletableFuture<String> firstFuture = userNameDataLoader.load(1);
+      CompletableFuture<List<String>> manyFuture = userNameDataLoader.loadMany(new long[] { 2, 3 });
+
+      // the strategy still sees the keys and dispatches them
+      assertThat(firstFuture.getNow(null)).isEqualTo("User 1");
+      assertThat(manyFuture.join()).containsExactly("User 2", "User 3");
+    } finally {
+      context.end();
+    }
+  }
+}
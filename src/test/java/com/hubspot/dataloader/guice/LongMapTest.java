@@ -0,0 +1,41 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongMapTest {
+
+  @Test
+  public void itMatchesAHashMap() {
+    LongMap<String> longMap = new LongMap<>();
+    Map<Long, String> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    // a small key space so there are lots of collisions, removals and re-insertions
+    for (int i = 0; i < 100_000; i++) {
+      long key = random.nextInt(200) - 100;
+      if (random.nextInt(3) == 0) {
+        longMap.remove(key);
+        expected.remove(key);
+      } else {
+        longMap.put(key, "value" + i);
+        expected.put(key, "value" + i);
+      }
+
+      assertThat(longMap.size()).isEqualTo(expected.size());
+    }
+
+    for (long key = -100; key < 100; key++) {
+      assertThat(longMap.get(key)).isEqualTo(expected.get(key));
+    }
+
+    longMap.clear();
+    assertThat(longMap.size()).isZero();
+    assertThat(longMap.get(0)).isNull();
+  }
+}
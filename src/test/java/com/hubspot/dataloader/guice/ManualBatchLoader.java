@@ -0,0 +1,37 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import org.dataloader.BatchLoader;
+
+/**
+ * Batches only complete when the test completes them
+ */
+public class ManualBatchLoader implements BatchLoader<String, String> {
+  public static final Queue<Batch> BATCHES = new ConcurrentLinkedQueue<>();
+
+  @Override
+  public CompletionStage<List<String>> load(List<String> keys) {
+    Batch batch = new Batch(keys);
+    BATCHES.add(batch);
+    return batch.future;
+  }
+
+  public static class Batch {
+    public final List<String> keys;
+    private final CompletableFuture<List<String>> future = new CompletableFuture<>();
+
+    private Batch(List<String> keys) {
+      this.keys = keys;
+    }
+
+    public void complete() {
+      future.complete(keys.stream().map(key -> "Loaded " + key).collect(Collectors.toList()));
+    }
+  }
+}
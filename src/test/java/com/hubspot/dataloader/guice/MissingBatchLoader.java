@@ -0,0 +1,37 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dataloader.BatchLoader;
+
+/**
+ * Loads "missing" keys as null, "timeout" keys as a TimeoutException and "broken" keys as an IllegalStateException
+ */
+public class MissingBatchLoader implements BatchLoader<String, Object> {
+  public static final AtomicInteger BATCHES = new AtomicInteger();
+
+  @Override
+  public CompletionStage<List<Object>> load(List<String> keys) {
+    BATCHES.incrementAndGet();
+
+    List<Object> values = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      if (key.equals("missing")) {
+        values.add(null);
+      } else if (key.equals("timeout")) {
+        values.add(new TimeoutException(key));
+      } else if (key.equals("broken")) {
+        values.add(new IllegalStateException(key));
+      } else {
+        values.add("Found " + key);
+      }
+    }
+
+    return CompletableFuture.completedFuture(values);
+  }
+}
@@ -0,0 +1,97 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+import com.hubspot.dataloader.guice.OffHeapCache.Stored;
+
+public class OffHeapCacheTest {
+  private static final ValueCodec<String> UTF_8 = new ValueCodec<String>() {
+
+    @Override
+    public byte[] encode(String value) {
+      return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String decode(byte[] bytes) {
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  };
+
+  @Test
+  public void itEvictsTheLeastRecentlyUsedToStayWithinItsBytes() {
+    OffHeapCache<String, String> cache = new OffHeapCache<>(4 * OffHeapCache.BLOCK_BYTES, Long.MAX_VALUE, UTF_8);
+
+    cache.put("a", "a", Strings.repeat("a", 1500), System.nanoTime());
+    cache.put("b", "b", Strings.repeat("b", 1500), System.nanoTime());
+    assertThat(cache.bytes()).isEqualTo(4 * OffHeapCache.BLOCK_BYTES);
+
+    // needs one more block, which evicts both of a's
+    cache.put("c", "c", "c", System.nanoTime());
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.bytes()).isEqualTo(3 * OffHeapCache.BLOCK_BYTES);
+    assertThat(cache.remove("a")).isNull();
+
+    Stored<String> b = cache.remove("b");
+    assertThat(b.key).isEqualTo("b");
+    assertThat(cache.decode(b)).isEqualTo(Strings.repeat("b", 1500));
+    assertThat(cache.bytes()).isEqualTo(OffHeapCache.BLOCK_BYTES);
+
+    // larger than the whole tier
+    cache.put("d", "d", Strings.repeat("d", 5 * OffHeapCache.BLOCK_BYTES), System.nanoTime());
+    assertThat(cache.remove("d")).isNull();
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void itNeedsRoomForAtLeastOneBlock() {
+    assertThatThrownBy(() -> SharedCacheOptions.newOptions().setOffHeapTier(OffHeapCache.BLOCK_BYTES - 1, UTF_8))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void itDropsExpiredEntries() {
+    OffHeapCache<String, String> cache = new OffHeapCache<>(4 * OffHeapCache.BLOCK_BYTES, 1_000, UTF_8);
+
+    cache.put("a", "a", "a", System.nanoTime() - 1_000_000);
+    assertThat(cache.remove("a")).isNull();
+    assertThat(cache.bytes()).isZero();
+    assertThat(cache.getHitCount()).isZero();
+  }
+
+  @Test
+  public void itReusesFreedBlocksWithoutMixingUpValues() {
+    OffHeapCache<Integer, String> cache = new OffHeapCache<>(64 * OffHeapCache.BLOCK_BYTES, Long.MAX_VALUE, UTF_8);
+    Map<Integer, String> written = new HashMap<>();
+    Random random = new Random(42);
+
+    for (int i = 0; i < 10_000; i++) {
+      int key = random.nextInt(100);
+      if (random.nextInt(3) == 0) {
+        Stored<Integer> stored = cache.remove(key);
+        if (stored != null) {
+          assertThat(cache.decode(stored)).isEqualTo(written.get(key));
+        }
+      } else {
+        String value = Strings.repeat(Integer.toString(i), random.nextInt(1000));
+        cache.put(key, key, value, System.nanoTime());
+        written.put(key, value);
+      }
+
+      assertThat(cache.bytes()).isLessThanOrEqualTo(64 * OffHeapCache.BLOCK_BYTES);
+    }
+
+    cache.invalidateAll();
+    assertThat(cache.size()).isZero();
+    assertThat(cache.bytes()).isZero();
+  }
+}
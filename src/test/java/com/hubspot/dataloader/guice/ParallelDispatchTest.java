@@ -0,0 +1,82 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.ServletScopes;
+
+public class ParallelDispatchTest {
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+  private final AtomicInteger executions = new AtomicInteger();
+
+  @After
+  public void teardown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void itDispatchesDataLoadersOnTheExecutor() {
+    Injector injector = Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+      binder.install(new DataLoaderModule().withLazyRegistry().withParallelDispatch());
+
+      binder.bind(Key.get(Executor.class, DispatchExecutor.class)).toInstance(command -> {
+        executions.incrementAndGet();
+        executor.execute(command);
+      });
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("greeting").toBatchLoader(GreetingBatchLoader.class)
+          .bindDataLoader("farewell").toBatchLoader(FarewellBatchLoader.class);
+    });
+
+    DataLoader<String, String> greetingDataLoader = getDataLoader(injector, "greeting");
+    DataLoader<String, String> farewellDataLoader = getDataLoader(injector, "farewell");
+
+    inRequestScope(() -> {
+      RequestDataLoaderRegistry registry = (RequestDataLoaderRegistry) injector.getInstance(DataLoaderRegistry.class);
+
+      CompletableFuture<String> greetingFuture = greetingDataLoader.load("Bill");
+      CompletableFuture<String> farewellFuture = farewellDataLoader.load("Bill");
+      registry.dispatchAllAsync().join();
+
+      assertThat(greetingFuture.getNow(null)).isEqualTo("Hello Bill");
+      assertThat(farewellFuture.getNow(null)).isEqualTo("Goodbye Bill");
+      assertThat(executions.get()).isEqualTo(2);
+
+      // a single pending DataLoader is dispatched on the calling thread
+      CompletableFuture<String> anneFuture = greetingDataLoader.load("Anne");
+      registry.dispatchAllAsync().join();
+
+      assertThat(anneFuture.getNow(null)).isEqualTo("Hello Anne");
+      assertThat(executions.get()).isEqualTo(2);
+    });
+  }
+
+  private static DataLoader<String, String> getDataLoader(Injector injector, String name) {
+    return injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named(name)));
+  }
+
+  private static void inRequestScope(Runnable r) {
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      r.run();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.OutOfScopeException;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class PoolingTest {
+  private Injector injector;
+  private DataLoader<String, String> countingDataLoader;
+  private DataLoader<String, String> manualDataLoader;
+
+  @Before
+  public void setup() {
+    CountingBatchLoader.BATCHES.set(0);
+    ManualBatchLoader.BATCHES.clear();
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule().withLazyRegistry().withPooling(1));
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      dataLoaderBinder.bindDataLoader("counting").toBatchLoader(CountingBatchLoader.class);
+      dataLoaderBinder.bindDataLoader("manual").toBatchLoader(ManualBatchLoader.class);
+    });
+
+    countingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("counting")));
+    manualDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("manual")));
+  }
+
+  @Test
+  public void itReusesDataLoadersWithoutSharingTheirCache() {
+    DataLoaderContext first = DataLoaderContext.newContext();
+    RequestDataLoaders firstDataLoaders;
+    DataLoaderRegistry firstRegistry;
+    try (CloseableContext ignored = first.open()) {
+      countingDataLoader.load("Bill");
+      firstRegistry = injector.getInstance(DataLoaderRegistry.class);
+      firstRegistry.dispatchAll();
+      firstDataLoaders = injector.getInstance(RequestDataLoaders.class);
+    }
+    first.end();
+
+    DataLoaderContext second = DataLoaderContext.newContext();
+    try (CloseableContext ignored = second.open()) {
+      DataLoaderRegistry registry = injector.getInstance(DataLoaderRegistry.class);
+      assertThat(registry.getDataLoaders()).isEmpty();
+
+      CompletableFuture<String> future = countingDataLoader.load("Bill");
+      assertThat(future.isDone()).isFalse();
+      registry.dispatchAll();
+      assertThat(future.getNow(null)).isEqualTo("Counted Bill");
+
+      assertThat(injector.getInstance(RequestDataLoaders.class)).isSameAs(firstDataLoaders);
+      assertThat(registry.getStatistics().getLoadCount()).isEqualTo(1);
+      // the default strategy has no dispatcher to tell about loads
+      assertThat(firstDataLoaders.get("counting")).isNotInstanceOf(DispatchingDataLoader.class);
+    }
+    second.end();
+
+    assertThat(CountingBatchLoader.BATCHES.get()).isEqualTo(2);
+
+    // anything the first request kept can't reach the DataLoaders it handed on
+    assertThatThrownBy(() -> firstRegistry.getDataLoader("counting")).isInstanceOf(IllegalStateException.class);
+    try (CloseableContext ignored = first.open()) {
+      assertThatThrownBy(() -> countingDataLoader.load("Bill")).isInstanceOf(OutOfScopeException.class);
+    }
+  }
+
+  @Test
+  public void itFailsLoadsThroughADataLoaderKeptFromAnEarlierRequest() {
+    DataLoaderContext first = DataLoaderContext.newContext();
+    DataLoader<String, String> firstDataLoader;
+    try (CloseableContext ignored = first.open()) {
+      firstDataLoader = injector.getInstance(DataLoaderRegistry.class).getDataLoader("counting");
+      firstDataLoader.load("Bill");
+      firstDataLoader.dispatch();
+    }
+    first.end();
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      DataLoader<String, String> dataLoader = injector.getInstance(DataLoaderRegistry.class).getDataLoader("counting");
+
+      assertThatThrownBy(() -> firstDataLoader.load("Jane")).isInstanceOf(IllegalStateException.class);
+      assertThat(dataLoader.dispatchDepth()).isEqualTo(0);
+      assertThat(dataLoader.getStatistics().getLoadCount()).isEqualTo(0);
+    }
+  }
+
+  @Test
+  public void itDoesntReuseDataLoadersThatAreStillLoading() {
+    DataLoaderContext first = DataLoaderContext.newContext();
+    RequestDataLoaders firstDataLoaders;
+    CompletableFuture<String> firstFuture;
+    try (CloseableContext ignored = first.open()) {
+      firstFuture = manualDataLoader.load("Bill");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+      firstDataLoaders = injector.getInstance(RequestDataLoaders.class);
+    }
+    first.end();
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      manualDataLoader.load("Bill");
+      assertThat(injector.getInstance(RequestDataLoaders.class)).isNotSameAs(firstDataLoaders);
+    }
+
+    ManualBatchLoader.BATCHES.poll().complete();
+    assertThat(firstFuture.getNow(null)).isEqualTo("Loaded Bill");
+  }
+}
@@ -0,0 +1,104 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class PrimingTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    CountingBatchLoader.BATCHES.set(0);
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      dataLoaderBinder
+          .bindDataLoader("userName")
+          .withPriming("counting", (String name) -> name)
+          .withPriming("counting", (String name) -> Arrays.asList(name.split(" ")), (String word) -> "word " + word)
+          .toLongBatchLoader(UserNameBatchLoader.class);
+      dataLoaderBinder
+          .bindDataLoader("greeting")
+          .withPriming("counting", (String greeting) -> greeting.substring("Hello ".length()))
+          .toBatchLoader(GreetingBatchLoader.class);
+      dataLoaderBinder
+          .bindDataLoader("counting")
+          .toBatchLoader(CountingBatchLoader.class);
+    });
+  }
+
+  @Test
+  public void itPrimesOtherDataLoadersWithTheResults() {
+    DataLoader<Long, String> userNameDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<Long, String>>() {}, Names.named("userName")));
+    DataLoader<String, String> greetingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+    DataLoader<String, String> countingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("counting")));
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      userNameDataLoader.load(1L);
+      greetingDataLoader.load("Bill");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      CompletableFuture<String> byName = countingDataLoader.load("User 1");
+      CompletableFuture<String> byWord = countingDataLoader.load("word 1");
+      CompletableFuture<String> byGreeting = countingDataLoader.load("Bill");
+
+      // already completed, nothing was queued
+      assertThat(byName.getNow(null)).isEqualTo("User 1");
+      assertThat(byWord.getNow(null)).isEqualTo("1");
+      assertThat(byGreeting.getNow(null)).isEqualTo("Hello Bill");
+      assertThat(countingDataLoader.dispatchDepth()).isEqualTo(0);
+    }
+
+    assertThat(CountingBatchLoader.BATCHES.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void itCreatesTheOtherDataLoaderOffTheRequestThread() {
+    // the budget makes creating the counting DataLoader depend on its request
+    Injector injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule().withRequestCacheBudget(10));
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      dataLoaderBinder
+          .bindDataLoader("greeting")
+          .withExecutor(BatchLoaderExecutor.newBoundedExecutor("greeting", 1, 10))
+          .withPriming("counting", (String greeting) -> greeting.substring("Hello ".length()))
+          .toBatchLoader(GreetingBatchLoader.class);
+      dataLoaderBinder
+          .bindDataLoader("counting")
+          .toBatchLoader(CountingBatchLoader.class);
+    });
+
+    DataLoader<String, String> greetingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("greeting")));
+    DataLoader<String, String> countingDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("counting")));
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      CompletableFuture<String> greeting = greetingDataLoader.load("Bill");
+      greetingDataLoader.dispatch();
+      assertThat(greeting.join()).isEqualTo("Hello Bill");
+
+      assertThat(countingDataLoader.load("Bill").getNow(null)).isEqualTo("Hello Bill");
+    }
+
+    assertThat(CountingBatchLoader.BATCHES.get()).isEqualTo(0);
+  }
+}
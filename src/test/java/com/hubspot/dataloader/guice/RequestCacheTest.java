@@ -0,0 +1,97 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+
+public class RequestCacheTest {
+
+  @Test
+  public void itEvictsCompletedEntriesOverTheMaximumSize() {
+    Injector injector = newInjector(new DataLoaderModule(), RequestCacheOptions.newOptions().setMaximumSize(2));
+    DataLoader<String, String> countingDataLoader = getDataLoader(injector, "counting");
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      load(injector, countingDataLoader, "a", "b");
+      load(injector, countingDataLoader, "c");
+
+      assertThat(countingDataLoader.load("c").isDone()).isTrue();
+      assertThat(countingDataLoader.load("b").isDone()).isTrue();
+      assertThat(countingDataLoader.load("a").isDone()).isFalse();
+    }
+  }
+
+  @Test
+  public void itEvictsCompletedEntriesOverTheMaximumWeight() {
+    Injector injector = newInjector(
+        new DataLoaderModule(),
+        RequestCacheOptions.newOptions().setMaximumWeight(10, (String value) -> value.length())
+    );
+    DataLoader<String, String> countingDataLoader = getDataLoader(injector, "counting");
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      // each value weighs 9, so only the last one that completed before each write is kept
+      load(injector, countingDataLoader, "a");
+      load(injector, countingDataLoader, "b");
+      load(injector, countingDataLoader, "c");
+
+      assertThat(countingDataLoader.load("c").isDone()).isTrue();
+      assertThat(countingDataLoader.load("b").isDone()).isTrue();
+      assertThat(countingDataLoader.load("a").isDone()).isFalse();
+    }
+  }
+
+  @Test
+  public void itSharesTheBudgetAcrossDataLoaders() {
+    Injector injector = newInjector(new DataLoaderModule().withRequestCacheBudget(2), null);
+    DataLoader<String, String> countingDataLoader = getDataLoader(injector, "counting");
+    DataLoader<String, String> greetingDataLoader = getDataLoader(injector, "greeting");
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      load(injector, countingDataLoader, "a", "b");
+      load(injector, greetingDataLoader, "Bill");
+      // over budget, so the counting cache makes room from its own entries
+      load(injector, countingDataLoader, "c");
+
+      assertThat(greetingDataLoader.load("Bill").isDone()).isTrue();
+      assertThat(countingDataLoader.load("c").isDone()).isTrue();
+      assertThat(countingDataLoader.load("a").isDone()).isFalse();
+    }
+  }
+
+  private static Injector newInjector(Module dataLoaderModule, RequestCacheOptions requestCacheOptions) {
+    return Guice.createInjector(binder -> {
+      binder.install(dataLoaderModule);
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      TypedBindingBuilder counting = dataLoaderBinder.bindDataLoader("counting");
+      if (requestCacheOptions != null) {
+        counting.withRequestCache(requestCacheOptions);
+      }
+
+      counting.toBatchLoader(CountingBatchLoader.class);
+      dataLoaderBinder.bindDataLoader("greeting").toBatchLoader(GreetingBatchLoader.class);
+    });
+  }
+
+  private static DataLoader<String, String> getDataLoader(Injector injector, String name) {
+    return injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named(name)));
+  }
+
+  private static void load(Injector injector, DataLoader<String, String> dataLoader, String... keys) {
+    for (String key : keys) {
+      dataLoader.load(key);
+    }
+
+    injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+  }
+}
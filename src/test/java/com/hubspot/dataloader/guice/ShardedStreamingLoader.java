@@ -0,0 +1,32 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Streams each key's result when the test reports it, batches only complete when the test completes them
+ */
+public class ShardedStreamingLoader implements StreamingBatchLoader<String, String> {
+  public static final Queue<Batch> BATCHES = new ConcurrentLinkedQueue<>();
+
+  @Override
+  public CompletionStage<Void> load(List<String> keys, BatchResults<String, String> results) {
+    Batch batch = new Batch(keys, results);
+    BATCHES.add(batch);
+    return batch.future;
+  }
+
+  public static class Batch {
+    public final List<String> keys;
+    public final BatchResults<String, String> results;
+    public final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private Batch(List<String> keys, BatchResults<String, String> results) {
+      this.keys = keys;
+      this.results = results;
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.ServletScopes;
+
+public class SharedDataLoaderCacheTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    CountingBatchLoader.BATCHES.set(0);
+    MissingBatchLoader.BATCHES.set(0);
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      dataLoaderBinder
+          .bindDataLoader("counting")
+          .withSharedCache(SharedCacheOptions.newOptions().setMaximumSize(100))
+          .toBatchLoader(CountingBatchLoader.class);
+      dataLoaderBinder
+          .bindDataLoader("missing")
+          .withSharedCache(
+              SharedCacheOptions.newOptions()
+                  .setNegativeExpireAfterWrite(Duration.ofMinutes(1))
+                  .setCacheableErrors(error -> error instanceof TimeoutException)
+          )
+          .toBatchLoader(MissingBatchLoader.class);
+      dataLoaderBinder
+          .bindDataLoader("refreshing")
+          .withSharedCache(SharedCacheOptions.newOptions().setRefreshAfterWrite(Duration.ofMillis(50)))
+          .toBatchLoader(CountingBatchLoader.class);
+      dataLoaderBinder
+          .bindDataLoader("offHeap")
+          .withSharedCache(
+              SharedCacheOptions.newOptions()
+                  .setMaximumSize(1)
+                  .setOffHeapTier(1024 * 1024, ValueCodec.<String>serializable())
+          )
+          .toBatchLoader(CountingBatchLoader.class);
+    });
+  }
+
+  @Test
+  public void itOnlyLoadsMissesAcrossRequests() {
+    DataLoader<String, String> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("counting")));
+
+    inRequestScope(() -> {
+      CompletableFuture<String> future = dataLoader.load("a");
+      assertThat(future.isDone()).isFalse();
+
+      dispatch();
+      assertThat(future.getNow(null)).isEqualTo("Counted a");
+    });
+
+    inRequestScope(() -> {
+      // a shared cache hit shouldn't need a dispatch
+      CompletableFuture<String> cachedFuture = dataLoader.load("a");
+      assertThat(cachedFuture.getNow(null)).isEqualTo("Counted a");
+
+      CompletableFuture<List<String>> future = dataLoader.loadMany(Arrays.asList("a", "b"));
+      dispatch();
+
+      assertThat(future.getNow(null)).containsExactly("Counted a", "Counted b");
+      assertThat(CountingBatchLoader.LAST_KEYS.get()).containsExactly("b");
+    });
+
+    SharedDataLoaderCache<String, String> sharedCache = injector.getInstance(
+        Key.get(new TypeLiteral<SharedDataLoaderCache<String, String>>() {}, Names.named("counting"))
+    );
+    assertThat(sharedCache.size()).isEqualTo(2);
+    assertThat(sharedCache.getHitCount()).isEqualTo(1);
+    assertThat(CountingBatchLoader.BATCHES.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void itCachesMissingKeysAndCacheableErrors() {
+    DataLoader<String, Object> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, Object>>() {}, Names.named("missing")));
+
+    inRequestScope(() -> {
+      dataLoader.loadMany(Arrays.asList("missing", "timeout", "broken"));
+      dispatch();
+    });
+
+    inRequestScope(() -> {
+      // negative cache hits shouldn't need a dispatch
+      assertThat(dataLoader.load("missing").getNow("not loaded")).isNull();
+      assertThat(dataLoader.load("timeout").isCompletedExceptionally()).isTrue();
+
+      CompletableFuture<Object> broken = dataLoader.load("broken");
+      assertThat(broken.isDone()).isFalse();
+      dispatch();
+      assertThat(broken.isCompletedExceptionally()).isTrue();
+    });
+
+    SharedDataLoaderCache<String, Object> sharedCache = injector.getInstance(
+        Key.get(new TypeLiteral<SharedDataLoaderCache<String, Object>>() {}, Names.named("missing"))
+    );
+    assertThat(sharedCache.size()).isEqualTo(0);
+    assertThat(sharedCache.negativeSize()).isEqualTo(2);
+    assertThat(sharedCache.getNegativeHitCount()).isEqualTo(2);
+    assertThat(MissingBatchLoader.BATCHES.get()).isEqualTo(2);
+
+    sharedCache.invalidate("missing");
+    assertThat(sharedCache.negativeSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void itServesStaleValuesWhileRefreshingThemInOneBatch() throws InterruptedException {
+    DataLoader<String, String> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("refreshing")));
+
+    inRequestScope(() -> {
+      dataLoader.loadMany(Arrays.asList("a", "b"));
+      dispatch();
+    });
+
+    Thread.sleep(100);
+
+    inRequestScope(() -> {
+      // stale values are still served without a dispatch
+      assertThat(dataLoader.load("a").getNow(null)).isEqualTo("Counted a");
+      assertThat(dataLoader.load("b").getNow(null)).isEqualTo("Counted b");
+    });
+
+    inRequestScope(() -> {
+      // already refreshing, so this doesn't queue another refresh
+      assertThat(dataLoader.load("a").getNow(null)).isEqualTo("Counted a");
+    });
+
+    SharedDataLoaderCache<String, String> sharedCache = injector.getInstance(
+        Key.get(new TypeLiteral<SharedDataLoaderCache<String, String>>() {}, Names.named("refreshing"))
+    );
+    for (int i = 0; i < 100 && sharedCache.getRefreshCount() < 2; i++) {
+      Thread.sleep(20);
+    }
+
+    assertThat(sharedCache.getRefreshCount()).isEqualTo(2);
+    assertThat(CountingBatchLoader.BATCHES.get()).isEqualTo(2);
+    assertThat(CountingBatchLoader.LAST_KEYS.get()).containsExactly("a", "b");
+  }
+
+  @Test
+  public void itRefreshesAgainAfterARefreshThrowsAnError() throws InterruptedException {
+    AtomicInteger refreshes = new AtomicInteger();
+    SharedDataLoaderCache<String, String> sharedCache = new SharedDataLoaderCache<>(
+        SharedCacheOptions.newOptions().setRefreshAfterWrite(Duration.ofMillis(10)),
+        keys -> {
+          if (refreshes.incrementAndGet() == 1) {
+            throw new AssertionError("Refresh failed");
+          }
+
+          return CompletableFuture.completedFuture(Collections.singletonList("Refreshed a"));
+        },
+        injector.getInstance(Key.get(ScheduledExecutorService.class, DataLoaderScheduler.class)),
+        Runnable::run
+    );
+
+    sharedCache.populate("a", "a", "Loaded a");
+    Thread.sleep(20);
+
+    sharedCache.getAndRefresh("a");
+    for (int i = 0; i < 100 && sharedCache.getRefreshFailureCount() < 1; i++) {
+      Thread.sleep(20);
+    }
+
+    // the failed refresh let go of the key, so it can be refreshed again
+    sharedCache.getAndRefresh("a");
+    for (int i = 0; i < 100 && sharedCache.getRefreshCount() < 1; i++) {
+      Thread.sleep(20);
+    }
+
+    assertThat(sharedCache.getRefreshFailureCount()).isEqualTo(1);
+    assertThat(sharedCache.getIfPresent("a")).isEqualTo("Refreshed a");
+  }
+
+  @Test
+  public void itKeepsEvictedEntriesOffHeapAndPromotesThemWhenRead() {
+    DataLoader<String, String> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("offHeap")));
+
+    inRequestScope(() -> {
+      dataLoader.loadMany(Arrays.asList("a", "b"));
+      dispatch();
+    });
+
+    SharedDataLoaderCache<String, String> sharedCache = injector.getInstance(
+        Key.get(new TypeLiteral<SharedDataLoaderCache<String, String>>() {}, Names.named("offHeap"))
+    );
+    assertThat(sharedCache.size()).isEqualTo(1);
+    assertThat(sharedCache.offHeapSize()).isEqualTo(1);
+    assertThat(sharedCache.offHeapBytes()).isPositive();
+
+    inRequestScope(() -> {
+      // each one is found off heap, and moving it on heap pushes the other off
+      assertThat(dataLoader.load("a").getNow(null)).isEqualTo("Counted a");
+      assertThat(dataLoader.load("b").getNow(null)).isEqualTo("Counted b");
+    });
+
+    assertThat(sharedCache.getOffHeapHitCount()).isEqualTo(2);
+    assertThat(sharedCache.offHeapSize()).isEqualTo(1);
+    assertThat(CountingBatchLoader.BATCHES.get()).isEqualTo(1);
+
+    sharedCache.invalidateAll();
+    assertThat(sharedCache.offHeapSize()).isEqualTo(0);
+    assertThat(sharedCache.offHeapBytes()).isEqualTo(0);
+  }
+
+  private void dispatch() {
+    injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+  }
+
+  private static void inRequestScope(Runnable r) {
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      r.run();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.hubspot.dataloader.guice.DataLoaderContext.CloseableContext;
+import com.hubspot.dataloader.guice.ShardedStreamingLoader.Batch;
+
+public class StreamingTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    ShardedStreamingLoader.BATCHES.clear();
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      dataLoaderBinder
+          .bindDataLoader("sharded")
+          .toStreamingBatchLoader(ShardedStreamingLoader.class);
+      dataLoaderBinder
+          .bindDataLoader("caseInsensitive")
+          .withOptions(DataLoaderOptions.newOptions().setCacheKeyFunction(key -> key.toString().toLowerCase()))
+          .toStreamingBatchLoader(ShardedStreamingLoader.class);
+    });
+  }
+
+  @Test
+  public void itCompletesEachKeyAsItsResultArrives() {
+    DataLoader<String, String> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("sharded")));
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      CompletableFuture<String> a = dataLoader.load("a");
+      CompletableFuture<String> b = dataLoader.load("b");
+      CompletableFuture<String> c = dataLoader.load("c");
+      CompletableFuture<List<String>> all = dataLoader.loadMany(Arrays.asList("a", "b", "c"));
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      Batch batch = ShardedStreamingLoader.BATCHES.poll();
+      assertThat(batch.keys).containsExactly("a", "b", "c");
+
+      batch.results.complete("b", "Streamed b");
+      assertThat(b.getNow(null)).isEqualTo("Streamed b");
+      assertThat(a.isDone()).isFalse();
+      // a repeated load joins the streamed future rather than waiting for the batch
+      assertThat(dataLoader.load("b").getNow(null)).isEqualTo("Streamed b");
+
+      batch.results.fail("a", new IllegalStateException("shard down"));
+      assertThat(a.isCompletedExceptionally()).isTrue();
+      assertThat(c.isDone()).isFalse();
+      assertThat(all.isDone()).isFalse();
+
+      // keys that never streamed load as null
+      batch.future.complete(null);
+      assertThat(c.getNow("not loaded")).isNull();
+      assertThat(all.isCompletedExceptionally()).isTrue();
+      assertThat(dataLoader.load("b").getNow(null)).isEqualTo("Streamed b");
+      assertThat(ShardedStreamingLoader.BATCHES).isEmpty();
+    }
+  }
+
+  @Test
+  public void itFailsKeysThatHaventStreamedWhenTheBatchFails() {
+    DataLoader<String, String> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("sharded")));
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      CompletableFuture<String> a = dataLoader.load("a");
+      CompletableFuture<String> b = dataLoader.load("b");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      Batch batch = ShardedStreamingLoader.BATCHES.poll();
+      batch.results.complete("a", "Streamed a");
+      batch.future.completeExceptionally(new IllegalStateException("shard down"));
+
+      assertThat(a.getNow(null)).isEqualTo("Streamed a");
+      assertThatThrownBy(b::join).hasCauseInstanceOf(IllegalStateException.class);
+    }
+  }
+
+  @Test
+  public void itStreamsKeysThatShareACacheKeyTogether() {
+    DataLoader<String, String> dataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("caseInsensitive")));
+
+    try (CloseableContext ignored = DataLoaderContext.newContext().open()) {
+      CompletableFuture<String> lower = dataLoader.load("a");
+      CompletableFuture<String> upper = dataLoader.load("A");
+      CompletableFuture<String> b = dataLoader.load("b");
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      Batch batch = ShardedStreamingLoader.BATCHES.poll();
+      assertThat(batch.keys).containsExactly("a", "b");
+
+      batch.results.complete("a", "Streamed a");
+      assertThat(lower.getNow(null)).isEqualTo("Streamed a");
+      assertThat(upper.getNow(null)).isEqualTo("Streamed a");
+      assertThat(b.isDone()).isFalse();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package com.hubspot.dataloader.guice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletModule;
+import com.google.inject.servlet.ServletScopes;
+
+public class SubBatchTest {
+  private Injector injector;
+
+  @Before
+  public void setup() {
+    ManualBatchLoader.BATCHES.clear();
+
+    injector = Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+      binder.install(new DataLoaderModule());
+      DataLoaderBinder.newDataLoaderBinder(binder)
+          .bindDataLoader("manual")
+          .withSubBatches(2, 2)
+          .toBatchLoader(ManualBatchLoader.class);
+    });
+  }
+
+  @Test
+  public void itLimitsConcurrentSubBatches() {
+    DataLoader<String, String> manualDataLoader =
+        injector.getInstance(Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named("manual")));
+
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      List<CompletableFuture<String>> futures = Arrays.asList("a", "b", "c", "d", "e").stream()
+          .map(manualDataLoader::load)
+          .collect(Collectors.toList());
+      injector.getInstance(DataLoaderRegistry.class).dispatchAll();
+
+      // only two sub-batches can be loading at once
+      assertThat(ManualBatchLoader.BATCHES).hasSize(2);
+
+      ManualBatchLoader.Batch first = ManualBatchLoader.BATCHES.poll();
+      assertThat(first.keys).containsExactly("a", "b");
+      first.complete();
+
+      // the first sub-batch's keys complete on their own, and the last sub-batch starts
+      assertThat(futures.get(0).getNow(null)).isEqualTo("Loaded a");
+      assertThat(futures.get(1).getNow(null)).isEqualTo("Loaded b");
+      assertThat(futures.get(2).isDone()).isFalse();
+      assertThat(ManualBatchLoader.BATCHES).hasSize(2);
+
+      ManualBatchLoader.BATCHES.forEach(ManualBatchLoader.Batch::complete);
+      assertThat(futures.stream().map(future -> future.getNow(null)))
+          .containsExactly("Loaded a", "Loaded b", "Loaded c", "Loaded d", "Loaded e");
+    }
+  }
+}
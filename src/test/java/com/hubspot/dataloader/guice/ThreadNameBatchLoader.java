@@ -0,0 +1,18 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+
+import org.dataloader.BatchLoader;
+
+public class ThreadNameBatchLoader implements BatchLoader<String, String> {
+
+  @Override
+  public CompletionStage<List<String>> load(List<String> keys) {
+    String threadName = Thread.currentThread().getName();
+    List<String> values = keys.stream().map(key -> key + " loaded on " + threadName).collect(Collectors.toList());
+    return CompletableFuture.completedFuture(values);
+  }
+}
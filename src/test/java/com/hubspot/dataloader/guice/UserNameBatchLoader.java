@@ -0,0 +1,23 @@
+package com.hubspot.dataloader.guice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UserNameBatchLoader implements LongBatchLoader<String> {
+  public static final AtomicInteger BATCHES = new AtomicInteger();
+
+  @Override
+  public CompletionStage<List<String>> load(long[] keys) {
+    BATCHES.incrementAndGet();
+
+    List<String> values = new ArrayList<>(keys.length);
+    for (long key : keys) {
+      values.add("User " + key);
+    }
+
+    return CompletableFuture.completedFuture(values);
+  }
+}
@@ -0,0 +1,41 @@
+package com.hubspot.dataloader.guice.benchmark;
+
+import java.util.concurrent.Executor;
+
+import org.dataloader.DataLoaderOptions;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.servlet.ServletModule;
+import com.hubspot.dataloader.guice.DataLoaderBinder;
+import com.hubspot.dataloader.guice.DataLoaderModule;
+import com.hubspot.dataloader.guice.DispatchExecutor;
+import com.hubspot.dataloader.guice.GreetingBatchLoader;
+
+final class BenchmarkInjectors {
+
+  private BenchmarkInjectors() {
+    throw new AssertionError();
+  }
+
+  static String name(int i) {
+    return "greeting" + i;
+  }
+
+  static Injector newInjector(int bindings, DataLoaderModule module, DataLoaderOptions options, Executor dispatchExecutor) {
+    return Guice.createInjector(binder -> {
+      binder.install(new ServletModule());
+      binder.install(module);
+
+      if (dispatchExecutor != null) {
+        binder.bind(Key.get(Executor.class, DispatchExecutor.class)).toInstance(dispatchExecutor);
+      }
+
+      DataLoaderBinder dataLoaderBinder = DataLoaderBinder.newDataLoaderBinder(binder);
+      for (int i = 0; i < bindings; i++) {
+        dataLoaderBinder.bindDataLoader(name(i)).withOptions(options).toBatchLoader(GreetingBatchLoader.class);
+      }
+    });
+  }
+}
@@ -0,0 +1,80 @@
+package com.hubspot.dataloader.guice.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletScopes;
+import com.hubspot.dataloader.guice.DataLoaderModule;
+import com.hubspot.dataloader.guice.RequestDataLoaderRegistry;
+
+/**
+ * Cost of a request that loads a key from each of many DataLoaders and then dispatches them all
+ */
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+  @Param({ "10", "100" })
+  public int loaders;
+
+  @Param({ "false", "true" })
+  public boolean parallel;
+
+  private final List<DataLoader<String, String>> dataLoaders = new ArrayList<>();
+  private ExecutorService executor;
+  private Injector injector;
+
+  @Setup
+  public void setup() {
+    // caching off so every request queues a key on every DataLoader
+    DataLoaderOptions options = DataLoaderOptions.newOptions().setCachingEnabled(false);
+    if (parallel) {
+      executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+      injector = BenchmarkInjectors.newInjector(loaders, new DataLoaderModule().withParallelDispatch(), options, executor);
+    } else {
+      injector = BenchmarkInjectors.newInjector(loaders, new DataLoaderModule(), options, null);
+    }
+
+    for (int i = 0; i < loaders; i++) {
+      dataLoaders.add(injector.getInstance(
+          Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named(BenchmarkInjectors.name(i)))
+      ));
+    }
+  }
+
+  @TearDown
+  public void teardown() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  @Benchmark
+  public Object dispatchAll() {
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      RequestDataLoaderRegistry registry = (RequestDataLoaderRegistry) injector.getInstance(DataLoaderRegistry.class);
+      for (DataLoader<String, String> dataLoader : dataLoaders) {
+        dataLoader.load("Bill");
+      }
+
+      return registry.dispatchAllAsync().join();
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.hubspot.dataloader.guice.benchmark;
+
+import org.dataloader.DataLoaderOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.inject.Injector;
+import com.hubspot.dataloader.guice.DataLoaderModule;
+
+/**
+ * Cost of creating an injector with this many DataLoader bindings
+ */
+@State(Scope.Benchmark)
+public class InjectorBenchmark {
+
+  @Param({ "10", "100" })
+  public int bindings;
+
+  @Benchmark
+  public Injector createInjector() {
+    return BenchmarkInjectors.newInjector(bindings, new DataLoaderModule(), DataLoaderOptions.newOptions(), null);
+  }
+}
@@ -0,0 +1,74 @@
+package com.hubspot.dataloader.guice.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletScopes;
+import com.hubspot.dataloader.guice.DataLoaderModule;
+
+/**
+ * Cost of a cached load through the singleton wrapper, compared with the request scoped DataLoader it resolves to
+ */
+@State(Scope.Thread)
+public class LoadBenchmark {
+  private static final int KEYS = 1024;
+
+  private final String[] keys = new String[KEYS];
+  private CloseableScope scope;
+  private DataLoader<String, String> wrapper;
+  private DataLoader<String, String> direct;
+  private int next;
+
+  @Setup
+  public void setup() {
+    Injector injector = BenchmarkInjectors.newInjector(1, new DataLoaderModule(), DataLoaderOptions.newOptions(), null);
+    wrapper = injector.getInstance(
+        Key.get(new TypeLiteral<DataLoader<String, String>>() {}, Names.named(BenchmarkInjectors.name(0)))
+    );
+
+    // stays open for the whole trial, setup and the benchmark methods run on the same thread
+    scope = ServletScopes.scopeRequest(Collections.emptyMap()).open();
+    DataLoaderRegistry registry = injector.getInstance(DataLoaderRegistry.class);
+    direct = registry.getDataLoader(BenchmarkInjectors.name(0));
+
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = "key" + i;
+      direct.load(keys[i]);
+    }
+    registry.dispatchAll();
+  }
+
+  @TearDown
+  public void teardown() {
+    scope.close();
+  }
+
+  @Benchmark
+  public CompletableFuture<String> wrapperLoad() {
+    return wrapper.load(nextKey());
+  }
+
+  @Benchmark
+  public CompletableFuture<String> directLoad() {
+    return direct.load(nextKey());
+  }
+
+  private String nextKey() {
+    next = (next + 1) & (KEYS - 1);
+    return keys[next];
+  }
+}
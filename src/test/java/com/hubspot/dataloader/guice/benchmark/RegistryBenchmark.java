@@ -0,0 +1,44 @@
+package com.hubspot.dataloader.guice.benchmark;
+
+import java.util.Collections;
+
+import org.dataloader.DataLoaderOptions;
+import org.dataloader.DataLoaderRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.inject.Injector;
+import com.google.inject.servlet.RequestScoper.CloseableScope;
+import com.google.inject.servlet.ServletScopes;
+import com.hubspot.dataloader.guice.DataLoaderModule;
+
+/**
+ * Cost of building each request's DataLoaderRegistry
+ */
+@State(Scope.Benchmark)
+public class RegistryBenchmark {
+
+  @Param({ "10", "100" })
+  public int bindings;
+
+  @Param({ "false", "true" })
+  public boolean lazy;
+
+  private Injector injector;
+
+  @Setup
+  public void setup() {
+    DataLoaderModule module = lazy ? new DataLoaderModule().withLazyRegistry() : new DataLoaderModule();
+    injector = BenchmarkInjectors.newInjector(bindings, module, DataLoaderOptions.newOptions(), null);
+  }
+
+  @Benchmark
+  public DataLoaderRegistry createRegistry() {
+    try (CloseableScope scope = ServletScopes.scopeRequest(Collections.emptyMap()).open()) {
+      return injector.getInstance(DataLoaderRegistry.class);
+    }
+  }
+}